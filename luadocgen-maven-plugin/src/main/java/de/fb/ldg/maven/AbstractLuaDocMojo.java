@@ -0,0 +1,160 @@
+package de.fb.ldg.maven;
+
+import de.fb.ldg.DocEngine;
+import de.fb.ldg.DocOptions;
+import de.fb.ldg.SourceDiscovery;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Common parameters of the goals. All executions of the plugin share one {@link DocEngine}: Maven
+ * keeps the plugin's class loader for the whole reactor, so later modules find the parser warm and
+ * files that several modules document (e.g. a shared library directory) already parsed.
+ */
+public abstract class AbstractLuaDocMojo extends AbstractMojo {
+
+    /**
+     * The engine of the reactor, see the class comment.
+     */
+    protected static final DocEngine ENGINE = new DocEngine();
+
+    /**
+     * Directories, files or .zip/.jar bundles with the Lua sources.
+     */
+    @Parameter(defaultValue = "${project.basedir}/src/main/lua")
+    protected List<File> sources;
+
+    /**
+     * Only document files matching one of these globs, see {@link SourceDiscovery}.
+     */
+    @Parameter
+    protected List<String> includes = new ArrayList<>();
+
+    /**
+     * Skip files and directories matching one of these globs.
+     */
+    @Parameter
+    protected List<String> excludes = new ArrayList<>();
+
+    /**
+     * Skips the goal.
+     */
+    @Parameter(property = "luadocgen.skip", defaultValue = "false")
+    protected boolean skip;
+
+    /**
+     * Runs the goal even if no input changed since its last successful run.
+     */
+    @Parameter(property = "luadocgen.force", defaultValue = "false")
+    protected boolean force;
+
+    /**
+     * Where the goals remember the inputs of their last successful run.
+     */
+    @Parameter(defaultValue = "${project.build.directory}/luadocgen", readonly = true)
+    protected File stateDirectory;
+
+    /**
+     * Executions of a goal are up to date independently of each other.
+     */
+    @Parameter(defaultValue = "${mojoExecution.executionId}", readonly = true)
+    protected String executionId;
+
+    /**
+     * Finds the Lua files of the configured sources. Sources that do not exist are skipped, so
+     * modules without Lua files can share the configuration of their parent.
+     * @param options the options of the build, receive the includes and excludes
+     * @return the files, empty if there is nothing to document
+     * @throws MojoExecutionException if a directory cannot be scanned
+     */
+    protected List<SourceDiscovery.SourceFile> discover(DocOptions options) throws MojoExecutionException {
+        options.includes.addAll(includes);
+        options.excludes.addAll(excludes);
+        List<String> inputs = new ArrayList<>();
+        for (File source : sources) {
+            if (source.exists()) {
+                inputs.add(source.getPath());
+            } else {
+                getLog().debug("Skipping missing source " + source);
+            }
+        }
+        if (inputs.isEmpty()) {
+            return List.of();
+        }
+        try {
+            return ENGINE.discover(inputs, options);
+        } catch (IOException e) {
+            throw new MojoExecutionException("Cannot scan Lua sources: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Hashes the files with their size and modification time together with the configuration of
+     * the goal. The goal is up to date while the hash equals the one of its last run.
+     * @param sources the discovered files, including their attributes
+     * @param configuration everything else the result depends on
+     * @return the hash
+     */
+    protected static String inputHash(List<SourceDiscovery.SourceFile> sources, String configuration) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(configuration.getBytes(StandardCharsets.UTF_8));
+            for (SourceDiscovery.SourceFile source : sources) {
+                String line = "\n" + source.path + "\t" + source.size + "\t"
+                    + (source.lastModified == null ? "" : source.lastModified.toMillis());
+                digest.update(line.getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * @param name the name of the goal execution
+     * @param hash the hash of the current inputs
+     * @return whether the last successful run had the same inputs
+     */
+    protected boolean isUpToDate(String name, String hash) {
+        if (force) {
+            return false;
+        }
+        try {
+            Path stamp = stamp(name);
+            return Files.exists(stamp) && Files.readString(stamp).trim().equals(hash);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Remembers the inputs of a successful run.
+     * @param name the name of the goal execution
+     * @param hash the hash of the inputs
+     */
+    protected void markUpToDate(String name, String hash) {
+        try {
+            Path stamp = stamp(name);
+            Files.createDirectories(stamp.getParent());
+            Files.writeString(stamp, hash + "\n");
+        } catch (IOException e) {
+            getLog().warn("Cannot write " + name + " stamp: " + e.getMessage());
+        }
+    }
+
+    private Path stamp(String name) {
+        return stateDirectory.toPath().resolve(name + ".stamp");
+    }
+}
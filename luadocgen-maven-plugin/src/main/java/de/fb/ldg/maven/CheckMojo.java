@@ -0,0 +1,58 @@
+package de.fb.ldg.maven;
+
+import de.fb.ldg.DocOptions;
+import de.fb.ldg.SourceDiscovery;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugin.MojoFailureException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.util.List;
+
+/**
+ * Parses the module's Lua sources and fails the build if a file cannot be parsed, e.g. because a
+ * documentation block is not followed by a function declaration. Files that did not change since
+ * the last successful check are not checked again.
+ */
+@Mojo(name = "check", defaultPhase = LifecyclePhase.VERIFY, threadSafe = true)
+public class CheckMojo extends AbstractLuaDocMojo {
+
+    /**
+     * Only log the errors instead of failing the build.
+     */
+    @Parameter(property = "luadocgen.failOnError", defaultValue = "true")
+    private boolean failOnError;
+
+    @Override
+    public void execute() throws MojoExecutionException, MojoFailureException {
+        if (skip) {
+            getLog().info("Skipping Lua documentation check");
+            return;
+        }
+
+        List<SourceDiscovery.SourceFile> files = discover(new DocOptions());
+        if (files.isEmpty()) {
+            getLog().info("No Lua sources to check");
+            return;
+        }
+
+        String stamp = "check-" + executionId;
+        String hash = inputHash(files, "check");
+        if (isUpToDate(stamp, hash)) {
+            getLog().info("Lua documentation check is up to date (" + files.size() + " file(s))");
+            return;
+        }
+
+        List<String> errors = ENGINE.check(files);
+        for (String error : errors) {
+            getLog().error(error);
+        }
+        getLog().info("Checked " + files.size() + " Lua file(s), " + errors.size() + " error(s)");
+        if (errors.isEmpty()) {
+            markUpToDate(stamp, hash);
+        } else if (failOnError) {
+            throw new MojoFailureException(errors.size() + " Lua file(s) with invalid documentation, see the log above");
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package de.fb.ldg.maven;
+
+import de.fb.ldg.DocOptions;
+import de.fb.ldg.Documentation;
+import de.fb.ldg.HtmlOptions;
+import de.fb.ldg.MergePolicy;
+import de.fb.ldg.OutputBackend;
+import de.fb.ldg.SourceDiscovery;
+import de.fb.ldg.Theme;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Generates the documentation of the module's Lua sources, like {@code java -jar luadocgen.jar}
+ * but inside the Maven process. Nothing is done if sources and configuration did not change since
+ * the last run and all outputs still exist.
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PREPARE_PACKAGE, threadSafe = true)
+public class GenerateMojo extends AbstractLuaDocMojo {
+
+    /**
+     * The output directory or .zip/.jar archive, see --output.
+     */
+    @Parameter(property = "luadocgen.output", defaultValue = "${project.build.directory}/luadoc")
+    private File output;
+
+    /**
+     * Output formats with optional output, e.g. {@code html} or {@code markdown=target/wiki}, see --format.
+     * Relative outputs are resolved against the directory of the module.
+     */
+    @Parameter(property = "luadocgen.formats")
+    private List<String> formats = new ArrayList<>();
+
+    @Parameter(property = "luadocgen.pageSize", defaultValue = "" + HtmlOptions.DEFAULT_PAGE_SIZE)
+    private int pageSize;
+
+    @Parameter(property = "luadocgen.namespacePageSize", defaultValue = "" + HtmlOptions.DEFAULT_NAMESPACE_PAGE_SIZE)
+    private int namespacePageSize;
+
+    /**
+     * Number of parse and render workers, 0 for the number of processors.
+     */
+    @Parameter(property = "luadocgen.threads", defaultValue = "0")
+    private int threads;
+
+    @Parameter(property = "luadocgen.gzip", defaultValue = "false")
+    private boolean gzip;
+
+    /**
+     * Directory with templates replacing the built-in ones.
+     */
+    @Parameter(property = "luadocgen.theme")
+    private File theme;
+
+    /**
+     * keep-first, keep-last, keep-all-overloads or error.
+     */
+    @Parameter(property = "luadocgen.mergePolicy", defaultValue = "keep-all-overloads")
+    private String mergePolicy;
+
+    @Parameter(defaultValue = "${project.basedir}", readonly = true)
+    private File basedir;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipping Lua documentation");
+            return;
+        }
+
+        DocOptions options = new DocOptions();
+        options.log = new PrintStream(new LogOutputStream(), true, StandardCharsets.UTF_8);
+        options.output = output.getPath();
+        options.html.pageSize = pageSize;
+        options.html.namespacePageSize = namespacePageSize;
+        options.html.gzip = gzip;
+        if (threads > 0) {
+            options.parseThreads = threads;
+            options.html.threads = threads;
+        }
+        Map<OutputBackend, String> outputs;
+        try {
+            if (theme != null) {
+                options.html.theme = Theme.load(theme.toPath());
+            }
+            options.mergePolicy = MergePolicy.fromName(mergePolicy);
+            options.formats = parseFormats();
+            outputs = OutputBackend.resolve(options.formats, options.output);
+        } catch (IOException | RuntimeException e) {
+            throw new MojoExecutionException("Invalid configuration: " + e.getMessage(), e);
+        }
+
+        List<SourceDiscovery.SourceFile> files = discover(options);
+        if (files.isEmpty()) {
+            getLog().info("No Lua sources to document");
+            return;
+        }
+
+        String stamp = "generate-" + executionId;
+        StringBuilder configuration = new StringBuilder();
+        outputs.forEach((backend, out) -> configuration.append(backend.getName()).append('=').append(out).append(','));
+        configuration.append("pageSize=").append(pageSize).append(",namespacePageSize=").append(namespacePageSize)
+            .append(",gzip=").append(gzip).append(",theme=").append(options.html.theme.key).append(",mergePolicy=").append(options.mergePolicy);
+        String hash = inputHash(files, configuration.toString());
+        if (isUpToDate(stamp, hash) && outputs.values().stream().allMatch(out -> Files.exists(Paths.get(out)))) {
+            getLog().info("Lua documentation is up to date (" + files.size() + " file(s))");
+            return;
+        }
+
+        try {
+            long start = System.nanoTime();
+            long hits = ENGINE.getParseCache().getHits();
+            Documentation documentation = ENGINE.parse(files, options);
+            ENGINE.generate(documentation, options);
+            // Other modules may build at the same time, so the count is approximate with -T
+            getLog().info("Documented " + files.size() + " Lua file(s) in " + (System.nanoTime() - start) / 1_000_000
+                + " ms, " + (ENGINE.getParseCache().getHits() - hits) + " of them parsed by an earlier build");
+        } catch (RuntimeException e) {
+            throw new MojoExecutionException("Error generating Lua documentation: " + e.getMessage(), e);
+        }
+        markUpToDate(stamp, hash);
+    }
+
+    /**
+     * Parses the entries of {@code formats} like the values of --format. Maven runs every module
+     * in the directory of the reactor, so relative outputs would end up there.
+     */
+    private Map<String, String> parseFormats() {
+        Map<String, String> result = new LinkedHashMap<>();
+        for (String entry : formats) {
+            for (String format : entry.split(",")) {
+                int separator = format.indexOf('=');
+                if (separator < 0) {
+                    result.put(format.trim(), null);
+                } else {
+                    String target = format.substring(separator + 1).trim();
+                    if (!target.equals("-") && !new File(target).isAbsolute()) {
+                        target = new File(basedir, target).getPath();
+                    }
+                    result.put(format.substring(0, separator).trim(), target);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Forwards the progress messages of the build line by line to the Maven log.
+     */
+    private class LogOutputStream extends OutputStream {
+        private final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        @Override
+        public synchronized void write(int b) {
+            if (b == '\n') {
+                flushLine();
+            } else if (b != '\r') {
+                line.write(b);
+            }
+        }
+
+        @Override
+        public synchronized void close() {
+            flushLine();
+        }
+
+        private void flushLine() {
+            if (line.size() > 0) {
+                getLog().info(line.toString(StandardCharsets.UTF_8));
+                line.reset();
+            }
+        }
+    }
+}
@@ -0,0 +1,208 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Remembers for every page of an output directory which symbols it read and their fingerprints
+ * (see {@link Dependencies}, {@link SymbolFingerprints}). A page whose symbols all still have the
+ * same fingerprint does not have to be rendered again. The manifest is stored as a text file in
+ * the output directory, one page per line:
+ * <pre>
+ * # luadocgen manifest 1 &lt;key&gt;
+ * Foo.html	class:Foo=1f3a...	link:Bar=77c0...
+ * </pre>
+ * The key describes the options the pages were rendered with; if it changed, every page is
+ * rendered again. The pages listed by an outdated manifest are still known, so those the new
+ * build does not produce are deleted.
+ */
+public class BuildManifest {
+
+    /**
+     * Name of the manifest file in the output directory.
+     */
+    public static final String FILE_NAME = ".ldg-manifest";
+
+    /**
+     * Increased whenever the rendering changes in a way the fingerprints cannot see.
+     */
+    static final int FORMAT = 1;
+
+    private static final String HEADER_PREFIX = "# luadocgen manifest ";
+    private static final String HEADER = HEADER_PREFIX + FORMAT + " ";
+
+    private final Path file;
+    private final String key;
+    private final SymbolFingerprints fingerprints;
+    private final Map<String, Map<String, String>> previous = new LinkedHashMap<>();
+    private final Set<String> previousPages = new LinkedHashSet<>();
+    private final Map<String, Map<String, String>> current = new ConcurrentHashMap<>();
+    private final AtomicInteger reused = new AtomicInteger();
+    private final AtomicInteger rendered = new AtomicInteger();
+
+    private BuildManifest(Path file, String key, SymbolFingerprints fingerprints) {
+        this.file = file;
+        this.key = key;
+        this.fingerprints = fingerprints;
+    }
+
+    /**
+     * Loads the manifest of an output directory. A missing or outdated manifest yields one without
+     * reusable pages; the pages of an outdated one are only remembered for {@link #stalePages()}.
+     * @param root the output directory
+     * @param key describes the options the pages are rendered with
+     * @param fingerprints the fingerprints of the current build
+     * @return the manifest
+     * @throws IOException if the manifest cannot be read
+     */
+    public static BuildManifest load(Path root, String key, SymbolFingerprints fingerprints) throws IOException {
+        BuildManifest manifest = new BuildManifest(root.resolve(FILE_NAME), key, fingerprints);
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(manifest.file, StandardCharsets.UTF_8);
+        } catch (NoSuchFileException e) {
+            return manifest;
+        }
+        if (lines.isEmpty() || !lines.get(0).startsWith(HEADER_PREFIX)) {
+            return manifest;
+        }
+        boolean reusable = lines.get(0).equals(HEADER + key);
+        for (String line : lines.subList(1, lines.size())) {
+            String[] columns = line.split("\t");
+            manifest.previousPages.add(columns[0]);
+            if (!reusable) {
+                continue;
+            }
+            Map<String, String> symbols = new LinkedHashMap<>();
+            for (int i = 1; i < columns.length; i++) {
+                // Symbol names may contain '=', fingerprints never do
+                int separator = columns[i].lastIndexOf('=');
+                symbols.put(columns[i].substring(0, separator), columns[i].substring(separator + 1));
+            }
+            manifest.previous.put(columns[0], symbols);
+        }
+        return manifest;
+    }
+
+    /**
+     * Checks whether a page can be kept as it is: it exists and none of the symbols it read
+     * changed. Pages that are up to date are carried over into the new manifest.
+     * @param page the file name of the page
+     * @return true if the page does not have to be rendered
+     */
+    public boolean isUpToDate(String page) {
+        if (!isUnchanged(page)) {
+            return false;
+        }
+        current.put(page, previous.get(page));
+        reused.incrementAndGet();
+        return true;
+    }
+
+    /**
+     * Checks whether the files of the previous build in the given directory can be kept, like
+     * {@link #isUpToDate(String)} but only all of them together. They are carried over into the
+     * new manifest if so.
+     * @param directory the directory relative to the output directory, e.g. {@code search}
+     * @return true if the previous build wrote files there and none of them has to be written again
+     */
+    public boolean isUpToDateDirectory(String directory) {
+        List<String> pages = new ArrayList<>();
+        for (String page : previous.keySet()) {
+            if (page.startsWith(directory + "/")) {
+                if (!isUnchanged(page)) {
+                    return false;
+                }
+                pages.add(page);
+            }
+        }
+        for (String page : pages) {
+            current.put(page, previous.get(page));
+            reused.incrementAndGet();
+        }
+        return !pages.isEmpty();
+    }
+
+    private boolean isUnchanged(String page) {
+        Map<String, String> symbols = previous.get(page);
+        if (symbols == null || !Files.isRegularFile(file.resolveSibling(page))) {
+            return false;
+        }
+        for (Map.Entry<String, String> symbol : symbols.entrySet()) {
+            if (!fingerprints.get(symbol.getKey()).equals(symbol.getValue())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Records the symbols a page read while it was rendered.
+     * @param page the file name of the page
+     * @param symbols the symbols
+     */
+    public void rendered(String page, Set<String> symbols) {
+        Map<String, String> fingerprinted = new TreeMap<>();
+        for (String symbol : symbols) {
+            fingerprinted.put(symbol, fingerprints.get(symbol));
+        }
+        current.put(page, fingerprinted);
+        rendered.incrementAndGet();
+    }
+
+    /**
+     * @return the pages of the previous build that were not produced by this build
+     */
+    public List<String> stalePages() {
+        List<String> stale = new ArrayList<>();
+        for (String page : previousPages) {
+            if (!current.containsKey(page)) {
+                stale.add(page);
+            }
+        }
+        return stale;
+    }
+
+    /**
+     * Writes the manifest of this build.
+     * @throws IOException if the manifest cannot be written
+     */
+    public void save() throws IOException {
+        StringBuilder sb = new StringBuilder(HEADER).append(key).append('\n');
+        for (Map.Entry<String, Map<String, String>> page : new TreeMap<>(current).entrySet()) {
+            sb.append(page.getKey());
+            for (Map.Entry<String, String> symbol : page.getValue().entrySet()) {
+                sb.append('\t').append(symbol.getKey().replace('\t', ' ').replace('\n', ' '))
+                    .append('=').append(symbol.getValue());
+            }
+            sb.append('\n');
+        }
+        Files.writeString(file, sb, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the number of pages kept from the previous build
+     */
+    public int getReused() {
+        return reused.get();
+    }
+
+    /**
+     * @return the number of pages rendered by this build
+     */
+    public int getRendered() {
+        return rendered.get();
+    }
+}
@@ -33,6 +33,8 @@ public class Class {
      */
     public final List<SeeReference> seeReferences;
 
+    private final boolean frozen;
+
     /**
      * Creates a new class.
      * @param name the name of the class
@@ -43,11 +45,33 @@ public class Class {
      */
     public Class(String name, List<String> parents, List<Field> fields,
                 List<Function> functions, List<SeeReference> seeReferences) {
+        this(name, parents, fields, functions, seeReferences, false);
+    }
+
+    private Class(String name, List<String> parents, List<Field> fields,
+                  List<Function> functions, List<SeeReference> seeReferences, boolean frozen) {
         this.name = name;
         this.parent = parents;
         this.fields = fields;
         this.functions = functions;
         this.seeReferences = seeReferences != null ? seeReferences : new ArrayList<>();
+        this.frozen = frozen;
+    }
+
+    /**
+     * Returns an immutable copy of this class with unmodifiable lists and frozen functions.
+     * @return the copy, or this class if it is already frozen
+     */
+    public Class freeze() {
+        if (frozen) {
+            return this;
+        }
+        List<Function> frozenFunctions = new ArrayList<>(functions.size());
+        for (Function function : functions) {
+            frozenFunctions.add(function.freeze());
+        }
+        return new Class(name, List.copyOf(parent), List.copyOf(fields), List.copyOf(frozenFunctions),
+            List.copyOf(seeReferences), true);
     }
 
     @Override
@@ -0,0 +1,45 @@
+package de.fb.ldg;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression helpers for rendered pages.
+ */
+public class Compression {
+
+    private Compression() {
+    }
+
+    /**
+     * Compresses the data with gzip using the default compression level.
+     * @param data the data to compress
+     * @return the gzip stream
+     */
+    public static byte[] gzip(byte[] data) {
+        return gzip(data, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Compresses the data with gzip.
+     * @param data the data to compress
+     * @param level the deflate level from 0 to 9, or -1 for the default
+     * @return the gzip stream
+     */
+    public static byte[] gzip(byte[] data, int level) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out) {
+            {
+                def.setLevel(level);
+            }
+        }) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package de.fb.ldg;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Records which symbols a page reads while it is rendered. The lookups of {@link PageLayout},
+ * {@link PageIds}, {@link Inheritance} and {@link ReferenceIndex} report the symbol they answer
+ * for; outside of {@link #record(Supplier, Set)} this costs a single thread local read.
+ *
+ * <p>Symbols are strings with a kind prefix:</p>
+ * <ul>
+ * <li>{@code class:Name} - everything rendered about a class: members, pages and anchors</li>
+ * <li>{@code link:Name} - whether a class exists and its file name</li>
+ * <li>{@code method:Class.name} - page and anchor of a method</li>
+ * <li>{@code function:name} - whether a global function exists, its page and anchor</li>
+ * <li>{@code refs:Name} - the places referencing a class</li>
+ * <li>{@code globals} - all global functions and variables</li>
+ * <li>{@code namespaces} - the names and file names of all classes</li>
+ * <li>{@code classes} - everything {@code class:Name} covers, for all classes</li>
+ * </ul>
+ */
+public final class Dependencies {
+
+    public static final String GLOBALS = "globals";
+    public static final String NAMESPACES = "namespaces";
+    public static final String CLASSES = "classes";
+
+    private static final ThreadLocal<Set<String>> current = new ThreadLocal<>();
+
+    private Dependencies() {
+    }
+
+    /**
+     * Runs the renderer and adds every symbol it reads to the given set.
+     * @param renderer the renderer of a page
+     * @param symbols the set receiving the symbols
+     * @return the result of the renderer
+     */
+    public static <T> T record(Supplier<T> renderer, Set<String> symbols) {
+        Set<String> previous = current.get();
+        current.set(symbols);
+        try {
+            return renderer.get();
+        } finally {
+            current.set(previous);
+        }
+    }
+
+    /**
+     * Reports that the page being rendered read the given symbol.
+     * @param symbol the symbol
+     */
+    public static void read(String symbol) {
+        Set<String> symbols = current.get();
+        if (symbols != null) {
+            symbols.add(symbol);
+        }
+    }
+
+    static void readClass(String className) {
+        read("class:" + className);
+    }
+
+    static void readLink(String className) {
+        read("link:" + className);
+    }
+
+    static void readMethod(String className, String methodName) {
+        read("method:" + className + "." + methodName);
+    }
+
+    static void readFunction(String functionName) {
+        read("function:" + functionName);
+    }
+
+    static void readReferences(String className) {
+        read("refs:" + className);
+    }
+}
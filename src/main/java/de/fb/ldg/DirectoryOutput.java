@@ -0,0 +1,112 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.Deflater;
+
+/**
+ * Writes rendered pages into a directory. Pages whose content did not change are not written
+ * again, which keeps their modification time stable. Optionally a gzip compressed sibling
+ * (page.html.gz) is written next to every page for servers like nginx with gzip_static.
+ * Writing is thread-safe, so pages can be written and compressed by the render workers.
+ */
+public class DirectoryOutput implements PageOutput {
+
+    private final Path root;
+    private final boolean gzip;
+    private final AtomicInteger written = new AtomicInteger();
+    private final AtomicInteger unchanged = new AtomicInteger();
+
+    /**
+     * Creates a new output.
+     * @param root the output directory
+     * @param gzip whether to write a .gz sibling for every file
+     * @throws IOException if the directory cannot be created
+     */
+    public DirectoryOutput(Path root, boolean gzip) throws IOException {
+        this.root = root;
+        this.gzip = gzip;
+        Files.createDirectories(root);
+    }
+
+    /**
+     * Writes a file unless it already exists with the same content. Without gzip a .gz sibling
+     * left by an earlier run is deleted, it would be served instead of the new content.
+     */
+    @Override
+    public void write(String relativePath, String content) throws IOException {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        Path file = root.resolve(relativePath);
+        Path gzipFile = file.resolveSibling(file.getFileName() + ".gz");
+        if (!gzip) {
+            Files.deleteIfExists(gzipFile);
+        }
+
+        if (isUnchanged(file, bytes) && (!gzip || Files.exists(gzipFile))) {
+            unchanged.incrementAndGet();
+            return;
+        }
+
+        if (relativePath.indexOf('/') >= 0) {
+            Files.createDirectories(file.getParent());
+        }
+        Files.write(file, bytes);
+        if (gzip) {
+            Files.write(gzipFile, Compression.gzip(bytes, Deflater.BEST_COMPRESSION));
+        }
+        written.incrementAndGet();
+    }
+
+    /**
+     * Deletes a file written by an earlier run together with its .gz sibling.
+     * @param relativePath the path of the file relative to the output directory
+     * @throws IOException if the file cannot be deleted
+     */
+    public void delete(String relativePath) throws IOException {
+        Path file = root.resolve(relativePath);
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(file.resolveSibling(file.getFileName() + ".gz"));
+    }
+
+    private static boolean isUnchanged(Path file, byte[] bytes) throws IOException {
+        if (!Files.isRegularFile(file) || Files.size(file) != bytes.length) {
+            return false;
+        }
+        return Arrays.equals(Files.readAllBytes(file), bytes);
+    }
+
+    @Override
+    public String describe() {
+        return root.toAbsolutePath() + " (" + written.get() + " file(s) written, " + unchanged.get() + " unchanged)";
+    }
+
+    @Override
+    public void close() {
+        // Every file is complete once written
+    }
+
+    /**
+     * @return the output directory
+     */
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the number of files written
+     */
+    public int getWritten() {
+        return written.get();
+    }
+
+    /**
+     * @return the number of files skipped because their content did not change
+     */
+    public int getUnchanged() {
+        return unchanged.get();
+    }
+}
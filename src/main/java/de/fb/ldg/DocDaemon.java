@@ -0,0 +1,345 @@
+package de.fb.ldg;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.PosixFilePermission;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.nio.file.attribute.UserPrincipal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Long running process which answers generate, check and query requests over a Unix domain
+ * socket. All requests run on one {@link DocEngine}, parsed files stay in its cache between
+ * requests, so repeated calls only pay for the files that actually changed. The progress messages
+ * of a request are sent to its client.
+ *
+ * <p>Protocol: the client sends its working directory, the command and one argument per line,
+ * followed by an empty line. The daemon answers with output lines and a final {@code EXIT <code>}.</p>
+ */
+public class DocDaemon {
+
+    private static final boolean POSIX = FileSystems.getDefault().supportedFileAttributeViews().contains("posix");
+
+    /**
+     * The socket used when none is given on the command line. It lies in a directory only the
+     * current user can access: below {@code $XDG_RUNTIME_DIR} if set, otherwise a directory of the
+     * user in the temporary directory, see {@link #createPrivateDirectory(Path)}.
+     */
+    public static Path defaultSocket() {
+        String runtimeDir = System.getenv("XDG_RUNTIME_DIR");
+        Path directory = runtimeDir != null && !runtimeDir.isEmpty()
+            ? Paths.get(runtimeDir, "luadocgen")
+            : Paths.get(System.getProperty("java.io.tmpdir"), "luadocgen-" + System.getProperty("user.name"));
+        return directory.resolve("daemon.sock");
+    }
+
+    /**
+     * Creates a directory only the current user can access, or checks that an existing one is,
+     * so other users can neither replace the socket nor connect to it.
+     * @param directory the directory
+     * @throws IOException if the directory cannot be created or belongs to another user or is accessible by others
+     */
+    static void createPrivateDirectory(Path directory) throws IOException {
+        if (!POSIX) {
+            Files.createDirectories(directory);
+            return;
+        }
+        try {
+            Files.createDirectory(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+        } catch (FileAlreadyExistsException e) {
+            // Checked below, it may have been created by someone else
+        }
+        checkOwner(directory);
+        if (!Files.isDirectory(directory, LinkOption.NOFOLLOW_LINKS)) {
+            throw new IOException(directory + " is not a directory");
+        }
+        Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(directory, LinkOption.NOFOLLOW_LINKS);
+        if (!PosixFilePermissions.fromString("rwx------").containsAll(permissions)) {
+            throw new IOException(directory + " must only be accessible by its owner, but has permissions "
+                + PosixFilePermissions.toString(permissions));
+        }
+    }
+
+    private static void checkOwner(Path path) throws IOException {
+        if (!POSIX) {
+            return;
+        }
+        UserPrincipal owner = Files.getOwner(path, LinkOption.NOFOLLOW_LINKS);
+        UserPrincipal user = path.getFileSystem().getUserPrincipalLookupService()
+            .lookupPrincipalByName(System.getProperty("user.name"));
+        if (!owner.equals(user)) {
+            throw new IOException(path + " belongs to " + owner.getName() + ", not to the current user");
+        }
+    }
+
+    private final Path socketPath;
+    private final long idleTimeoutMillis;
+    private final DocEngine engine = new DocEngine();
+    private final AtomicInteger activeRequests = new AtomicInteger();
+    private volatile long lastActivity = System.currentTimeMillis();
+    private ServerSocketChannel serverChannel;
+
+    /**
+     * Creates a new daemon.
+     * @param socketPath the Unix domain socket to listen on
+     * @param idleTimeoutMillis the daemon stops after this long without requests
+     */
+    public DocDaemon(Path socketPath, long idleTimeoutMillis) {
+        this.socketPath = socketPath;
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    /**
+     * Listens for requests until the idle timeout expires or a stop request is received.
+     * @throws IOException if the socket cannot be created
+     */
+    public void run() throws IOException {
+        if (socketPath.equals(defaultSocket())) {
+            createPrivateDirectory(socketPath.getParent());
+        }
+        if (Files.exists(socketPath)) {
+            if (isListening(socketPath)) {
+                throw new IOException("A daemon is already listening on " + socketPath);
+            }
+            // Stale socket file from a daemon that did not shut down cleanly
+            Files.delete(socketPath);
+        }
+
+        serverChannel = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+        serverChannel.bind(UnixDomainSocketAddress.of(socketPath));
+        if (POSIX) {
+            // Connecting needs write access, other users must not send requests
+            Files.setPosixFilePermissions(socketPath, PosixFilePermissions.fromString("rw-------"));
+        }
+        System.out.println("Daemon listening on " + socketPath);
+
+        ScheduledExecutorService idleCheck = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "ldg-idle-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = Math.max(100, Math.min(idleTimeoutMillis / 4, 5000));
+        idleCheck.scheduleAtFixedRate(() -> {
+            if (activeRequests.get() == 0 && System.currentTimeMillis() - lastActivity > idleTimeoutMillis) {
+                System.out.println("Idle timeout reached, shutting down");
+                shutdown();
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+
+        try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (serverChannel.isOpen()) {
+                SocketChannel client;
+                try {
+                    client = serverChannel.accept();
+                } catch (ClosedChannelException e) {
+                    break;
+                }
+                activeRequests.incrementAndGet();
+                lastActivity = System.currentTimeMillis();
+                workers.submit(() -> serve(client));
+            }
+        } finally {
+            idleCheck.shutdownNow();
+            engine.close();
+            Files.deleteIfExists(socketPath);
+        }
+    }
+
+    /**
+     * Stops accepting requests. Requests already running are completed.
+     */
+    public void shutdown() {
+        try {
+            serverChannel.close();
+        } catch (IOException ignored) {
+            // Already closed
+        }
+    }
+
+    private static boolean isListening(Path socketPath) {
+        try {
+            SocketChannel.open(UnixDomainSocketAddress.of(socketPath)).close();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void serve(SocketChannel client) {
+        try (client) {
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(client), StandardCharsets.UTF_8));
+            PrintStream out = new PrintStream(Channels.newOutputStream(client), true, StandardCharsets.UTF_8);
+
+            String workingDirectory = in.readLine();
+            String command = in.readLine();
+            List<String> args = new ArrayList<>();
+            String line;
+            while ((line = in.readLine()) != null && !line.isEmpty()) {
+                args.add(line);
+            }
+
+            int exitCode;
+            try {
+                exitCode = execute(Paths.get(workingDirectory), command, args, out);
+            } catch (Exception e) {
+                out.println("Error: " + e.getMessage());
+                exitCode = 1;
+            }
+            out.println("EXIT " + exitCode);
+        } catch (IOException e) {
+            System.err.println("Error serving client: " + e.getMessage());
+        } finally {
+            lastActivity = System.currentTimeMillis();
+            activeRequests.decrementAndGet();
+        }
+    }
+
+    private int execute(Path workingDirectory, String command, List<String> args, PrintStream out) throws IOException {
+        DocOptions options = new DocOptions();
+        options.log = out;
+        switch (command == null ? "" : command) {
+            case "generate": {
+                List<String> inputs = new ArrayList<>();
+                for (int i = 0; i < args.size(); i++) {
+                    if (args.get(i).equals("--output") && i + 1 < args.size()) {
+                        options.output = args.get(++i);
+                    } else {
+                        inputs.add(args.get(i));
+                    }
+                }
+                List<SourceDiscovery.SourceFile> sources = collect(workingDirectory, inputs, options);
+                Documentation documentation = engine.parse(sources, options);
+                Path outputPath = workingDirectory.resolve(options.output);
+                options.output = outputPath.toString();
+                engine.generate(documentation, options);
+                out.println("Generated documentation for " + sources.size() + " file(s) in " + outputPath);
+                return 0;
+            }
+            case "check": {
+                List<SourceDiscovery.SourceFile> sources = collect(workingDirectory, args, options);
+                List<String> errors = engine.check(sources);
+                errors.forEach(out::println);
+                out.println("Checked " + sources.size() + " file(s), " + errors.size() + " error(s)");
+                return errors.isEmpty() ? 0 : 1;
+            }
+            case "query": {
+                if (args.isEmpty()) {
+                    out.println("Usage: query <name> <lua-file|directory>...");
+                    return 2;
+                }
+                String name = args.get(0);
+                // Only the symbols are answered
+                options.log = new PrintStream(OutputStream.nullOutputStream());
+                List<SourceDiscovery.SourceFile> sources = collect(workingDirectory, args.subList(1, args.size()), options);
+                Documentation documentation = engine.parse(sources, options);
+                int found = 0;
+                for (Class clazz : documentation.classes) {
+                    if (clazz.name.equals(name)) {
+                        out.print("class " + clazz);
+                        found++;
+                    }
+                }
+                for (Function function : documentation.functions) {
+                    if (function.name.equals(name)) {
+                        out.println("function " + function);
+                        found++;
+                    }
+                }
+                for (Variable variable : documentation.variables) {
+                    if (variable.name.equals(name)) {
+                        out.println(variable);
+                        found++;
+                    }
+                }
+                if (found == 0) {
+                    out.println("No symbol named '" + name + "' found");
+                    return 1;
+                }
+                return 0;
+            }
+            case "status": {
+                ParseCache parseCache = engine.getParseCache();
+                out.println("Cached files: " + parseCache.size() + ", hits: " + parseCache.getHits()
+                    + ", misses: " + parseCache.getMisses());
+                return 0;
+            }
+            case "stop": {
+                out.println("Daemon stopping");
+                shutdown();
+                return 0;
+            }
+            default:
+                out.println("Unknown command: " + command);
+                return 2;
+        }
+    }
+
+    private List<SourceDiscovery.SourceFile> collect(Path workingDirectory, List<String> inputs, DocOptions options) throws IOException {
+        List<String> resolved = new ArrayList<>();
+        for (String input : inputs) {
+            resolved.add(workingDirectory.resolve(input).toString());
+        }
+        return engine.discover(resolved, options);
+    }
+
+    /**
+     * Sends a single request to a running daemon and prints its answer.
+     * @param socketPath the socket of the daemon
+     * @param command the command to execute
+     * @param args the arguments of the command
+     * @return the exit code reported by the daemon
+     * @throws IOException if the daemon cannot be reached or its socket belongs to another user
+     */
+    public static int request(Path socketPath, String command, List<String> args) throws IOException {
+        // The request contains the working directory and arguments, they must not go to another user's process
+        checkOwner(socketPath);
+        try (SocketChannel channel = SocketChannel.open(UnixDomainSocketAddress.of(socketPath))) {
+            StringWriter request = new StringWriter();
+            request.append(Paths.get("").toAbsolutePath().toString()).append('\n');
+            request.append(command).append('\n');
+            for (String arg : args) {
+                request.append(arg).append('\n');
+            }
+            request.append('\n');
+
+            PrintWriter out = new PrintWriter(Channels.newWriter(channel, StandardCharsets.UTF_8), true);
+            out.print(request);
+            out.flush();
+
+            BufferedReader in = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.startsWith("EXIT ")) {
+                    return Integer.parseInt(line.substring(5).trim());
+                }
+                System.out.println(line);
+            }
+            throw new IOException("Daemon closed the connection without a result");
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Generator object for embedding the tool in long running processes like a build server or a
+ * Maven reactor. The engine itself only holds state that is shared between builds: the
+ * {@link ParseCache}, whose files keep their names and types in one {@link StringPool}, and the
+ * parser and renderers stay compiled by the JIT. Everything that belongs to a single build is
+ * passed in with its {@link DocOptions}, so any number of builds can run on one engine at once.
+ *
+ * <p>The static entry points like {@link DocGenerator#generateFromFiles(String[])} run on a
+ * short-lived engine.</p>
+ */
+public class DocEngine implements AutoCloseable {
+
+    private final ParseCache parseCache;
+
+    /**
+     * Creates an engine with a parse cache pooling the strings of all cached files.
+     */
+    public DocEngine() {
+        this(new ParseCache(new StringPool()));
+    }
+
+    /**
+     * Creates an engine.
+     * @param parseCache the cache shared by all builds, or null to parse every file in every build
+     */
+    public DocEngine(ParseCache parseCache) {
+        this.parseCache = parseCache;
+    }
+
+    /**
+     * Discovers, parses and writes the documentation of the given inputs.
+     * @param inputs Lua files, directories and archives
+     * @param options the options of this build
+     * @return the merged documentation
+     * @throws IOException if an input does not exist or cannot be scanned
+     */
+    public Documentation build(List<String> inputs, DocOptions options) throws IOException {
+        Documentation documentation = parse(discover(inputs, options), options);
+        generate(documentation, options);
+        return documentation;
+    }
+
+    /**
+     * Finds the Lua files of the given inputs, filtered by the includes and excludes of the options.
+     * @param inputs Lua files, directories and archives
+     * @param options the options of this build
+     * @return the files in input order
+     * @throws IOException if an input does not exist or cannot be scanned
+     */
+    @SuppressWarnings("try") // The lease only keeps the archives open
+    public List<SourceDiscovery.SourceFile> discover(List<String> inputs, DocOptions options) throws IOException {
+        SourceDiscovery discovery = new SourceDiscovery();
+        options.includes.forEach(discovery::include);
+        options.excludes.forEach(discovery::exclude);
+        try (SourceArchives.Lease lease = SourceArchives.lease()) {
+            return discovery.discover(inputs);
+        }
+    }
+
+    /**
+     * Parses and merges the given files, reusing unchanged files from earlier builds. Files that
+     * recent builds did not use are dropped from the cache afterwards, see {@link ParseCache#finishBuild()}.
+     * @param sources the files, as found by {@link #discover}
+     * @param options the options of this build
+     * @return the merged documentation
+     */
+    @SuppressWarnings("try") // The lease only keeps the archives open
+    public Documentation parse(List<SourceDiscovery.SourceFile> sources, DocOptions options) {
+        ParseCache cache = options.useCache ? parseCache : null;
+        try (SourceArchives.Lease lease = SourceArchives.lease()) {
+            return new ParsePipeline()
+                .parseThreads(options.parseThreads)
+                .readQueue(options.readQueue)
+                .mergePolicy(options.mergePolicy)
+                .cache(cache)
+                .log(options.log)
+                .run(sources);
+        } finally {
+            if (cache != null) {
+                cache.finishBuild();
+            }
+        }
+    }
+
+    /**
+     * Writes the documentation in every format of the options.
+     * @param documentation the parsed documentation
+     * @param options the options of this build
+     * @throws IllegalArgumentException if a format is unknown
+     */
+    public void generate(Documentation documentation, DocOptions options) {
+        OutputBackend.generateAll(documentation, OutputBackend.resolve(options.formats, options.output), options);
+    }
+
+    /**
+     * Parses every file on its own without writing anything.
+     * @param sources the files to check
+     * @return one message per file that cannot be parsed, empty if all files are fine
+     */
+    @SuppressWarnings("try") // The lease only keeps the archives open
+    public List<String> check(List<SourceDiscovery.SourceFile> sources) {
+        List<String> errors = new ArrayList<>();
+        try (SourceArchives.Lease lease = SourceArchives.lease()) {
+            for (SourceDiscovery.SourceFile source : sources) {
+                try {
+                    if (parseCache != null) {
+                        parseCache.get(source);
+                    } else {
+                        DocGenerator.generate(SourceArchives.resolve(source.path));
+                    }
+                } catch (Exception e) {
+                    errors.add(source.path + ": " + e.getMessage());
+                }
+            }
+        }
+        return errors;
+    }
+
+    /**
+     * @return the cache shared by the builds, null if the engine does not cache
+     */
+    public ParseCache getParseCache() {
+        return parseCache;
+    }
+
+    /**
+     * Releases the archives read by the builds, see {@link SourceArchives#closeUnused()}. Builds
+     * of other engines that are still running keep reading them, and the engine can still be
+     * used afterwards.
+     */
+    @Override
+    public void close() {
+        SourceArchives.closeUnused();
+    }
+}
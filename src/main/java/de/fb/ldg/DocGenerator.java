@@ -1,9 +1,9 @@
 package de.fb.ldg;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
@@ -52,6 +52,30 @@ public class DocGenerator {
     }
 
     public static Documentation generate(String content) {
+        return parse(content, null);
+    }
+
+    /**
+     * Parses the content of a file and reports it as a {@link Tracing.FileParseEvent} while a
+     * recording is running.
+     * @param content the Lua source
+     * @param path the file, for the event
+     * @param bytes the size of the file, -1 if unknown
+     * @return the documentation of the file
+     */
+    static Documentation generate(String content, String path, long bytes) {
+        Tracing.FileParseEvent event = new Tracing.FileParseEvent();
+        event.begin();
+        Documentation documentation = parse(content, event);
+        if (event.shouldCommit()) {
+            event.path = path;
+            event.bytes = bytes >= 0 ? bytes : content.getBytes(StandardCharsets.UTF_8).length;
+            event.commit();
+        }
+        return documentation;
+    }
+
+    private static Documentation parse(String content, Tracing.FileParseEvent event) {
         Documentation documentation = new Documentation();
         List<DocBlock> blocks = new ArrayList<>();
         DocBlock block = new DocBlock();
@@ -72,6 +96,10 @@ public class DocGenerator {
 
             lineNumber++;
         }
+        if (event != null) {
+            event.lines = lines.length;
+            event.blocks = blocks.size();
+        }
 
         // Zuerst alle Klassen sammeln
         for (DocBlock b : blocks) {
@@ -97,17 +125,11 @@ public class DocGenerator {
         // Zusätzlich: Standalone @field Blöcke verarbeiten
         processStandaloneFields(blocks, documentation);
 
-        return documentation;
+        return documentation.freeze();
     }
 
     private static void processClassBlock(DocBlock block, Documentation documentation) {
         if (!block.className.isEmpty()) {
-            // Debug output to see what's happening
-            System.out.println("Processing class: " + block.className + " with " + block.fields.size() + " fields");
-            for (Field field : block.fields) {
-                System.out.println("  Field: " + field.name + " (" + field.type + ")");
-            }
-
             // Create class with fields from the same block and see references
             Class clazz = new Class(block.className, block.classParents, new ArrayList<>(block.fields), new ArrayList<>(), block.seeReferences);
             documentation.addClass(clazz);
@@ -354,9 +376,6 @@ public class DocGenerator {
 
         Field field = new Field(actualFieldName, fieldType, visibility, description);
         block.fields.add(field);
-
-        // Debug output
-        System.out.println("Parsed field: " + actualFieldName + " (" + fieldType + ") - " + description);
     }
 
     private static void parseParamLine(String line, DocBlock block) {
@@ -693,107 +712,75 @@ public class DocGenerator {
         );
     }
 
+    /**
+     * Generates documentation from a Lua file, or from all Lua files inside a .zip/.jar/.rock archive.
+     * Archive entries are read in place and parsed in parallel.
+     * @param path the Lua file or archive
+     * @return the documentation of the file
+     */
     public static Documentation generate(Path path) {
         try {
+            if (SourceArchives.isArchive(path)) {
+                return generateFromArchive(path);
+            }
             String content = Files.readString(path);
-            return generate(content);
+            return generate(content, path.toString(), -1);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
+    @SuppressWarnings("try") // The lease only keeps the archives open
+    private static Documentation generateFromArchive(Path archive) throws IOException {
+        List<String> entries;
+        List<Documentation> parsed;
+        try (SourceArchives.Lease lease = SourceArchives.lease()) {
+            entries = SourceArchives.listLuaFiles(archive);
+            parsed = entries.parallelStream()
+                .map(entry -> generate(SourceArchives.resolve(entry)))
+                .toList();
+        }
+
+        DocumentationBuilder builder = new DocumentationBuilder();
+        for (int i = 0; i < entries.size(); i++) {
+            builder.add(i, parsed.get(i), entries.get(i));
+        }
+        return builder.freeze();
+    }
+
     /**
      * Generates documentation from multiple Lua files.
      * @param filePaths Array of file paths to process
      * @return Combined documentation from all files
      */
     public static Documentation generateFromFiles(String[] filePaths) {
-        Documentation combinedDocumentation = new Documentation();
+        return generateFromFiles(filePaths, null);
+    }
 
+    /**
+     * Generates documentation from multiple Lua files, reusing unchanged files from the given cache.
+     * @param filePaths Array of file paths to process
+     * @param cache Cache of already parsed files, or null to parse every file
+     * @return Combined documentation from all files
+     */
+    public static Documentation generateFromFiles(String[] filePaths, ParseCache cache) {
+        List<SourceDiscovery.SourceFile> sources = new ArrayList<>(filePaths.length);
         for (String filePath : filePaths) {
-            try {
-                System.out.println("Processing file: " + filePath);
-                Path path = Paths.get(filePath);
-                Documentation fileDocumentation = generate(path);
-
-                // Merge documentation from this file into the combined documentation
-                mergeDocumentation(combinedDocumentation, fileDocumentation, filePath);
-
-            } catch (Exception e) {
-                System.err.println("Error processing file " + filePath + ": " + e.getMessage());
-                throw new RuntimeException("Failed to process file: " + filePath, e);
-            }
+            sources.add(SourceDiscovery.SourceFile.of(filePath));
         }
-
-        return combinedDocumentation;
+        return generateFromSources(sources, cache);
     }
 
     /**
-     * Merges documentation from one file into the combined documentation.
-     * @param target The target documentation to merge into
-     * @param source The source documentation to merge from
-     * @param sourceFileName The name of the source file (for error reporting)
+     * Generates documentation from discovered Lua files, reusing unchanged files from the given cache.
+     * The attributes collected during discovery are used for the cache lookup. Runs on a
+     * {@link DocEngine} with default options, long running processes should keep their own engine.
+     * @param sources The files to process
+     * @param cache Cache of already parsed files, or null to parse every file
+     * @return Combined documentation from all files
      */
-    private static void mergeDocumentation(Documentation target, Documentation source, String sourceFileName) {
-        // Check for class name conflicts and merge fields
-        for (Class sourceClass : source.classes) {
-            Class existingClass = findClassByName(target, sourceClass.name);
-            if (existingClass != null) {
-                // Class already exists - merge fields and functions instead of skipping
-                System.out.println("Merging class '" + sourceClass.name + "' - adding " +
-                    sourceClass.fields.size() + " new fields and " + sourceClass.functions.size() + " new functions");
-
-                // Add all new fields from source class to existing class
-                for (Field newField : sourceClass.fields) {
-                    // Check if field already exists
-                    boolean fieldExists = false;
-                    for (Field existingField : existingClass.fields) {
-                        if (existingField.name.equals(newField.name)) {
-                            fieldExists = true;
-                            break;
-                        }
-                    }
-                    if (!fieldExists) {
-                        existingClass.fields.add(newField);
-                    }
-                }
-
-                // Add all new functions from source class to existing class
-                for (Function newFunction : sourceClass.functions) {
-                    // Check if function already exists
-                    boolean functionExists = false;
-                    for (Function existingFunction : existingClass.functions) {
-                        if (existingFunction.name.equals(newFunction.name)) {
-                            functionExists = true;
-                            break;
-                        }
-                    }
-                    if (!functionExists) {
-                        existingClass.functions.add(newFunction);
-                    }
-                }
-
-                // Merge parent classes if they don't already exist
-                for (String newParent : sourceClass.parent) {
-                    if (!existingClass.parent.contains(newParent)) {
-                        existingClass.parent.add(newParent);
-                    }
-                }
-            } else {
-                // New class - add it normally
-                target.addClass(sourceClass);
-            }
-        }
-
-        // Add all functions (global functions can have the same name in different contexts)
-        for (Function function : source.functions) {
-            target.addFunction(function);
-        }
-
-        // Add all variables
-        for (Variable variable : source.variables) {
-            target.addVariable(variable);
-        }
+    public static Documentation generateFromSources(List<SourceDiscovery.SourceFile> sources, ParseCache cache) {
+        return new DocEngine(cache).parse(sources, new DocOptions());
     }
 
     /**
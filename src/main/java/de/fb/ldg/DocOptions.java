@@ -0,0 +1,65 @@
+package de.fb.ldg;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options of one build run by a {@link DocEngine}. Each build should use its own options object,
+ * builds running at the same time must not share one.
+ */
+public class DocOptions {
+
+    /**
+     * Output formats and their outputs, null for the default output of the format; html if empty.
+     * See {@link OutputBackend#resolve(Map, String)}.
+     */
+    public Map<String, String> formats = new LinkedHashMap<>();
+
+    /**
+     * The output given with --output.
+     */
+    public String output = "docs";
+
+    /**
+     * Only files matching one of these globs are documented, all files if empty.
+     */
+    public List<String> includes = new ArrayList<>();
+
+    /**
+     * Files and directories matching one of these globs are skipped.
+     */
+    public List<String> excludes = new ArrayList<>();
+
+    /**
+     * Number of threads parsing files.
+     */
+    public int parseThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Number of files read ahead of the parse workers.
+     */
+    public int readQueue = ParsePipeline.DEFAULT_QUEUE_DEPTH;
+
+    /**
+     * How functions and variables declared in several files are merged.
+     */
+    public MergePolicy mergePolicy = MergePolicy.KEEP_ALL_OVERLOADS;
+
+    /**
+     * Whether unchanged files are taken from the engine's parse cache and parsed files are added to it.
+     */
+    public boolean useCache = true;
+
+    /**
+     * Options of the HTML pages and page outputs, including the number of render workers.
+     */
+    public HtmlOptions html = new HtmlOptions();
+
+    /**
+     * Where the parser, the merge and the backends write the progress messages of the build.
+     */
+    public PrintStream log = System.out;
+}
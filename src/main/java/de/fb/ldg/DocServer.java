@@ -0,0 +1,364 @@
+package de.fb.ldg;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Embedded HTTP server which keeps the merged documentation in memory and renders
+ * pages on request. Rendered pages are kept in a bounded {@link PageCache}, which is
+ * replaced as soon as one of the watched Lua sources changes.
+ */
+public class DocServer {
+
+    /**
+     * Everything needed to answer requests for one version of the sources.
+     */
+    private static class Site {
+        final PageLayout layout;
+        final Theme theme;
+        final Map<String, Class> classPages = new HashMap<>();
+        final Map<String, Integer> classPageIndexes = new HashMap<>();
+        final PageCache cache;
+        private Map<String, String> searchFiles;
+
+        Site(Documentation documentation, HtmlOptions options, long cacheBytes) {
+            this.layout = new PageLayout(documentation, options.pageSize, options.namespacePageSize);
+            this.theme = options.theme;
+            this.cache = new PageCache(cacheBytes);
+            for (Class clazz : documentation.classes) {
+                for (int page = 0; page < layout.classPageCount(clazz); page++) {
+                    String name = layout.classPage(clazz.name, page);
+                    if (!classPages.containsKey(name)) {
+                        classPages.put(name, clazz);
+                        classPageIndexes.put(name, page);
+                    }
+                }
+            }
+        }
+
+        synchronized Map<String, String> searchFiles() {
+            if (searchFiles == null) {
+                searchFiles = SearchIndex.build(layout).files();
+            }
+            return searchFiles;
+        }
+    }
+
+    private final List<String> inputs;
+    private final DocOptions options;
+    private final long cacheBytes;
+    private final DocEngine engine = new DocEngine();
+    private volatile Site site;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private WatchService watchService;
+    private final Map<Path, WatchKey> watchedDirectories = new HashMap<>();
+    private Thread watcher;
+
+    /**
+     * Creates a new server for the given inputs.
+     * @param inputs Lua files and directories to document
+     * @param options options used for finding and parsing the sources and rendering the pages
+     * @param cacheBytes the maximum number of bytes of rendered pages kept in memory
+     */
+    public DocServer(List<String> inputs, DocOptions options, long cacheBytes) {
+        this.inputs = List.copyOf(inputs);
+        this.options = options;
+        this.cacheBytes = cacheBytes;
+    }
+
+    /**
+     * Parses the sources and starts serving on the given address.
+     * @param address the address to bind to
+     * @throws IOException if the server cannot be started
+     */
+    public void start(InetSocketAddress address) throws IOException {
+        reload();
+
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(address, 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+
+        watchService = FileSystems.getDefault().newWatchService();
+        for (String input : inputs) {
+            Path path = Paths.get(input).toAbsolutePath();
+            registerRecursive(Files.isDirectory(path) ? path : path.getParent());
+        }
+        watcher = new Thread(this::watchSources, "ldg-source-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+
+        options.log.println("Serving documentation on http://" + address.getHostString() + ":" + getPort() + "/");
+    }
+
+    /**
+     * Stops the server and the source watcher.
+     */
+    public void stop() {
+        if (server != null) {
+            server.stop(0);
+        }
+        if (executor != null) {
+            executor.shutdown();
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // Nothing left to clean up
+            }
+        }
+        engine.close();
+    }
+
+    /**
+     * @return the port the server is listening on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Parses all changed sources again and replaces the current site including its page cache.
+     */
+    void reload() throws IOException {
+        List<SourceDiscovery.SourceFile> sources = engine.discover(inputs, options);
+        Documentation documentation = engine.parse(sources, options);
+        site = new Site(documentation, options.html, cacheBytes);
+        site.layout.inheritance.getCycles().forEach(cycle -> options.log.println("Warning: Ignoring inheritance cycle " + cycle));
+        options.log.println("Loaded " + sources.size() + " file(s) with " + documentation.classes.size() + " class(es)");
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            String method = exchange.getRequestMethod();
+            boolean head = method.equals("HEAD");
+            if (!head && !method.equals("GET")) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            String page = exchange.getRequestURI().getPath().substring(1);
+            if (page.isEmpty()) {
+                page = "index.html";
+            }
+
+            Site current = site;
+            PageCache.Entry entry = current.cache.get(page);
+            if (entry == null) {
+                String html = render(current, page);
+                if (html == null) {
+                    byte[] body = ("Not found: /" + page).getBytes(StandardCharsets.UTF_8);
+                    exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+                    exchange.sendResponseHeaders(404, head ? -1 : body.length);
+                    if (!head) {
+                        exchange.getResponseBody().write(body);
+                    }
+                    return;
+                }
+                entry = new PageCache.Entry(html.getBytes(StandardCharsets.UTF_8));
+                current.cache.put(page, entry);
+            }
+
+            boolean gzip = acceptsGzip(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            String etag = gzip ? entry.gzipEtag : entry.etag;
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+
+            String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+            if (ifNoneMatch != null && (ifNoneMatch.equals("*") || ifNoneMatch.contains(etag))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+
+            byte[] body = entry.body;
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+                body = entry.gzipped;
+            }
+
+            exchange.getResponseHeaders().set("Content-Type", page.endsWith(".js")
+                ? "text/javascript; charset=utf-8" : "text/html; charset=utf-8");
+            if (head) {
+                exchange.getResponseHeaders().set("Content-Length", String.valueOf(body.length));
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } catch (RuntimeException e) {
+            options.log.println("Error rendering " + exchange.getRequestURI() + ": " + e.getMessage());
+            // The headers are gone if writing the body failed
+            if (exchange.getResponseCode() == -1) {
+                exchange.sendResponseHeaders(500, -1);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Checks whether an Accept-Encoding header allows gzip, either by name or by {@code *}, with a
+     * quality above 0.
+     * @param acceptEncoding the header, null if the request has none
+     * @return whether the gzip compressed body may be sent
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double wildcard = -1;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            String name = parameters[0].trim().toLowerCase(Locale.ROOT);
+            double quality = 1;
+            for (int i = 1; i < parameters.length; i++) {
+                String parameter = parameters[i].trim();
+                if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                    try {
+                        quality = Double.parseDouble(parameter.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        quality = 0;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = quality;
+            } else if (name.equals("*")) {
+                wildcard = quality;
+            }
+        }
+        return gzip >= 0 ? gzip > 0 : wildcard > 0;
+    }
+
+    private static String render(Site site, String page) {
+        PageLayout layout = site.layout;
+        Documentation documentation = layout.documentation;
+        if (page.equals("index.html")) {
+            return HtmlGenerator.renderOverviewPage(layout, site.theme);
+        }
+        NamespaceTree.Node namespace = layout.findNamespacePage(page);
+        if (namespace != null) {
+            return HtmlGenerator.renderNamespacePage(namespace, layout, site.theme);
+        }
+        boolean hasGlobals = !documentation.functions.isEmpty() || !documentation.variables.isEmpty();
+        if (hasGlobals && page.equals("globals.html")) {
+            return HtmlGenerator.renderGlobalsPage(layout, site.theme);
+        }
+        if (hasGlobals && layout.globalsPageCount() > 1) {
+            for (int i = 0; i < layout.globalsPageCount(); i++) {
+                if (layout.globalsPage(i).equals(page)) {
+                    return HtmlGenerator.renderGlobalsPage(layout, i, site.theme);
+                }
+            }
+        }
+        if (page.startsWith(SearchIndex.DIRECTORY + "/")) {
+            return site.searchFiles().get(page);
+        }
+        Class clazz = site.classPages.get(page);
+        return clazz != null ? HtmlGenerator.renderClassPage(clazz, layout, site.classPageIndexes.get(page), site.theme) : null;
+    }
+
+    private void registerRecursive(Path directory) throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path dir : (Iterable<Path>) paths.filter(Files::isDirectory)::iterator) {
+                watchedDirectories.put(dir, dir.register(watchService,
+                    StandardWatchEventKinds.ENTRY_CREATE,
+                    StandardWatchEventKinds.ENTRY_DELETE,
+                    StandardWatchEventKinds.ENTRY_MODIFY));
+            }
+        }
+    }
+
+    /**
+     * Stops watching a deleted or renamed directory and everything below it.
+     */
+    private void cancelRecursive(Path directory) {
+        watchedDirectories.entrySet().removeIf(watched -> {
+            if (watched.getKey().startsWith(directory)) {
+                watched.getValue().cancel();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    private void watchSources() {
+        try {
+            while (true) {
+                WatchKey key = watchService.take();
+                boolean changed = false;
+
+                // Collect everything that happens within a short window into one reload
+                while (key != null) {
+                    Path dir = (Path) key.watchable();
+                    for (WatchEvent<?> event : key.pollEvents()) {
+                        if (!(event.context() instanceof Path name)) {
+                            changed = true;
+                            continue;
+                        }
+                        Path child = dir.resolve(name);
+                        if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(child)) {
+                            registerRecursive(child);
+                            changed = true;
+                        } else if (event.kind() == StandardWatchEventKinds.ENTRY_DELETE && watchedDirectories.containsKey(child)) {
+                            // The classes of a deleted or renamed directory are gone
+                            cancelRecursive(child);
+                            changed = true;
+                        } else if (name.toString().toLowerCase(Locale.ROOT).endsWith(".lua") || SourceArchives.isArchive(child)) {
+                            changed = true;
+                        }
+                    }
+                    if (!key.reset()) {
+                        // The directory itself was deleted or cannot be read any more
+                        cancelRecursive(dir);
+                        changed = true;
+                    }
+                    key = watchService.poll(200, TimeUnit.MILLISECONDS);
+                }
+
+                if (changed) {
+                    try {
+                        reload();
+                    } catch (Exception e) {
+                        options.log.println("Keeping previous documentation, reload failed: " + e.getMessage());
+                    }
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // Server stopped
+        } catch (IOException e) {
+            options.log.println("Source watcher stopped: " + e.getMessage());
+        }
+    }
+}
@@ -5,6 +5,11 @@ import java.util.List;
 
 /**
  * Represents the complete documentation of a Lua file.
+ *
+ * <p>A documentation is mutable while a file is parsed. {@link #freeze()} turns it into an
+ * immutable snapshot in which every list, including those of its classes and functions, is
+ * unmodifiable. Snapshots are shared by the parse cache, the render workers and the server
+ * without copying or locking.</p>
  */
 public class Documentation {
 
@@ -23,6 +28,8 @@ public class Documentation {
      */
     public final List<Variable> variables;
 
+    private final boolean frozen;
+
     /**
      * Creates a new documentation object.
      */
@@ -30,6 +37,41 @@ public class Documentation {
         this.classes = new ArrayList<>();
         this.functions = new ArrayList<>();
         this.variables = new ArrayList<>();
+        this.frozen = false;
+    }
+
+    private Documentation(List<Class> classes, List<Function> functions, List<Variable> variables) {
+        this.classes = classes;
+        this.functions = functions;
+        this.variables = variables;
+        this.frozen = true;
+    }
+
+    /**
+     * Returns an immutable snapshot of this documentation. Adding to the snapshot or to any of
+     * its lists throws an {@link UnsupportedOperationException}.
+     * @return the snapshot, or this documentation if it is already frozen
+     */
+    public Documentation freeze() {
+        if (frozen) {
+            return this;
+        }
+        List<Class> frozenClasses = new ArrayList<>(classes.size());
+        for (Class clazz : classes) {
+            frozenClasses.add(clazz.freeze());
+        }
+        List<Function> frozenFunctions = new ArrayList<>(functions.size());
+        for (Function function : functions) {
+            frozenFunctions.add(function.freeze());
+        }
+        return new Documentation(List.copyOf(frozenClasses), List.copyOf(frozenFunctions), List.copyOf(variables));
+    }
+
+    /**
+     * @return whether this documentation is an immutable snapshot
+     */
+    public boolean isFrozen() {
+        return frozen;
     }
 
     /**
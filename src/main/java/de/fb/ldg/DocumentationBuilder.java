@@ -0,0 +1,246 @@
+package de.fb.ldg;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Combines the documentation of many files into one. Files can be added from any number of
+ * threads at once and in any order: classes are kept in a concurrent registry keyed by name and
+ * every class merges its fields, functions and parents in concurrent maps. Global functions and
+ * variables are kept in concurrent maps as well, so every declaration is merged in constant time.
+ *
+ * <p>Every element remembers its position in the input (file index, then position inside the
+ * file). Fields and parents are keyed by name and the earliest declaration wins. Functions and
+ * variables are keyed as described by the {@link MergePolicy}. {@link #freeze()} produces the
+ * same documentation as merging the files one after another in input order, regardless of the
+ * order in which they were added.</p>
+ */
+public class DocumentationBuilder {
+
+    /**
+     * Position of an element in the input.
+     */
+    private static final class Position implements Comparable<Position> {
+        final int file;
+        final int item;
+        final int member;
+
+        Position(int file, int item, int member) {
+            this.file = file;
+            this.item = item;
+            this.member = member;
+        }
+
+        @Override
+        public int compareTo(Position other) {
+            int result = Integer.compare(file, other.file);
+            if (result == 0) {
+                result = Integer.compare(item, other.item);
+            }
+            if (result == 0) {
+                result = Integer.compare(member, other.member);
+            }
+            return result;
+        }
+    }
+
+    /**
+     * An element together with its position and the file it was declared in.
+     */
+    private static final class Positioned<T> {
+        final Position position;
+        final T value;
+        final String origin;
+
+        Positioned(Position position, T value, String origin) {
+            this.position = position;
+            this.value = value;
+            this.origin = origin;
+        }
+
+        static <T> Positioned<T> earlier(Positioned<T> a, Positioned<T> b) {
+            return a.position.compareTo(b.position) <= 0 ? a : b;
+        }
+    }
+
+    /**
+     * A class while it is being merged.
+     */
+    private static final class ClassEntry {
+        final String name;
+        final Map<String, Positioned<Field>> fields = new ConcurrentHashMap<>();
+        final Map<String, Positioned<Function>> functions = new ConcurrentHashMap<>();
+        final Map<String, Positioned<String>> parents = new ConcurrentHashMap<>();
+        // First declaration, its @see references are used
+        Positioned<Class> declaration;
+
+        ClassEntry(String name) {
+            this.name = name;
+        }
+
+        synchronized void declare(Positioned<Class> candidate) {
+            if (declaration == null || candidate.position.compareTo(declaration.position) < 0) {
+                declaration = candidate;
+            }
+        }
+    }
+
+    private final MergePolicy policy;
+    private final Map<String, ClassEntry> classes = new ConcurrentHashMap<>();
+    private final Map<String, Positioned<Function>> functions = new ConcurrentHashMap<>();
+    private final Map<String, Positioned<Variable>> variables = new ConcurrentHashMap<>();
+    private PrintStream log = System.out;
+
+    /**
+     * Creates a builder that keeps overloads and drops duplicate declarations.
+     */
+    public DocumentationBuilder() {
+        this(MergePolicy.KEEP_ALL_OVERLOADS);
+    }
+
+    /**
+     * Creates a builder.
+     * @param policy how duplicate functions and variables are merged
+     */
+    public DocumentationBuilder(MergePolicy policy) {
+        this.policy = policy;
+    }
+
+    /**
+     * Sets where messages about merged classes are written.
+     * @param log the stream, System.out by default
+     * @return this builder
+     */
+    public DocumentationBuilder log(PrintStream log) {
+        this.log = log;
+        return this;
+    }
+
+    /**
+     * Adds the documentation of one file. The documentation itself is not modified.
+     * @param fileIndex the position of the file in the input, decides which declaration wins
+     * @param source the documentation of the file
+     * @param sourceFileName the name of the file, for messages
+     * @throws IllegalStateException if the policy is {@link MergePolicy#ERROR} and a function or
+     * variable was already declared with the same signature
+     */
+    public void add(int fileIndex, Documentation source, String sourceFileName) {
+        Tracing.MergeEvent event = new Tracing.MergeEvent();
+        event.begin();
+        for (int i = 0; i < source.classes.size(); i++) {
+            Class sourceClass = source.classes.get(i);
+            ClassEntry created = new ClassEntry(sourceClass.name);
+            ClassEntry entry = classes.putIfAbsent(sourceClass.name, created);
+            if (entry == null) {
+                entry = created;
+            } else {
+                log.println("Merging class '" + sourceClass.name + "' from " + sourceFileName + " - adding " +
+                    sourceClass.fields.size() + " new fields and " + sourceClass.functions.size() + " new functions");
+            }
+
+            entry.declare(new Positioned<>(new Position(fileIndex, i, 0), sourceClass, sourceFileName));
+            for (int j = 0; j < sourceClass.fields.size(); j++) {
+                Field field = sourceClass.fields.get(j);
+                entry.fields.merge(field.name, new Positioned<>(new Position(fileIndex, i, j), field, sourceFileName),
+                    Positioned::earlier);
+            }
+            for (int j = 0; j < sourceClass.functions.size(); j++) {
+                Function function = sourceClass.functions.get(j);
+                merge(entry.functions, functionKey(function), sourceClass.name + "." + function.name,
+                    new Positioned<>(new Position(fileIndex, i, j), function, sourceFileName));
+            }
+            for (int j = 0; j < sourceClass.parent.size(); j++) {
+                String parent = sourceClass.parent.get(j);
+                entry.parents.merge(parent, new Positioned<>(new Position(fileIndex, i, j), parent, sourceFileName),
+                    Positioned::earlier);
+            }
+        }
+
+        for (int i = 0; i < source.functions.size(); i++) {
+            Function function = source.functions.get(i);
+            merge(functions, functionKey(function), function.name,
+                new Positioned<>(new Position(fileIndex, i, 0), function, sourceFileName));
+        }
+        for (int i = 0; i < source.variables.size(); i++) {
+            Variable variable = source.variables.get(i);
+            merge(variables, variable.name, variable.name,
+                new Positioned<>(new Position(fileIndex, i, 0), variable, sourceFileName));
+        }
+        if (event.shouldCommit()) {
+            event.path = sourceFileName;
+            event.classes = source.classes.size();
+            event.functions = source.functions.size();
+            event.variables = source.variables.size();
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the key under which a function is merged: its name, plus its signature if overloads are kept.
+     */
+    private String functionKey(Function function) {
+        if (!policy.keepsOverloads()) {
+            return function.name;
+        }
+        StringBuilder key = new StringBuilder(function.name).append(function.isStatic ? '.' : ':').append('(');
+        for (int i = 0; i < function.parameters.size(); i++) {
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(function.parameters.get(i).type);
+        }
+        return key.append(')').toString();
+    }
+
+    private <T> void merge(Map<String, Positioned<T>> target, String key, String description, Positioned<T> element) {
+        target.merge(key, element, (existing, added) -> {
+            Positioned<T> earlier = Positioned.earlier(existing, added);
+            Positioned<T> later = earlier == existing ? added : existing;
+            switch (policy) {
+                case KEEP_LAST:
+                    return later;
+                case ERROR:
+                    throw new IllegalStateException("Duplicate declaration of '" + description + "' in "
+                        + earlier.origin + " and " + later.origin);
+                default:
+                    return earlier;
+            }
+        });
+    }
+
+    /**
+     * Builds the combined documentation. Must not be called while files are still being added.
+     * @return a frozen documentation, ordered as if the files had been merged in input order
+     */
+    public Documentation freeze() {
+        Documentation documentation = new Documentation();
+
+        List<ClassEntry> entries = new ArrayList<>(classes.values());
+        entries.sort(Comparator.comparing(entry -> entry.declaration.position));
+        for (ClassEntry entry : entries) {
+            documentation.addClass(new Class(entry.name, sorted(entry.parents), sorted(entry.fields),
+                sorted(entry.functions), entry.declaration.value.seeReferences));
+        }
+        for (Function function : sorted(functions)) {
+            documentation.addFunction(function);
+        }
+        for (Variable variable : sorted(variables)) {
+            documentation.addVariable(variable);
+        }
+        return documentation.freeze();
+    }
+
+    private static <T> List<T> sorted(Map<String, Positioned<T>> elements) {
+        List<Positioned<T>> list = new ArrayList<>(elements.values());
+        list.sort(Comparator.comparing(element -> element.position));
+        List<T> values = new ArrayList<>(list.size());
+        for (Positioned<T> element : list) {
+            values.add(element.value);
+        }
+        return values;
+    }
+}
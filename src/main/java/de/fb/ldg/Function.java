@@ -49,6 +49,8 @@ public class Function {
      */
     public final List<SeeReference> seeReferences;
 
+    private final boolean frozen;
+
     /**
      * Creates a new function.
      * @param name the name of the function
@@ -64,6 +66,13 @@ public class Function {
     public Function(String name, String description, List<Parameter> parameters,
                    String returnType, String returnDescription, boolean nodiscard,
                    boolean isStatic, List<String> examples, List<SeeReference> seeReferences) {
+        this(name, description, parameters, returnType, returnDescription, nodiscard, isStatic, examples,
+            seeReferences, false);
+    }
+
+    private Function(String name, String description, List<Parameter> parameters,
+                     String returnType, String returnDescription, boolean nodiscard,
+                     boolean isStatic, List<String> examples, List<SeeReference> seeReferences, boolean frozen) {
         this.name = name;
         this.description = description;
         this.parameters = parameters;
@@ -73,6 +82,22 @@ public class Function {
         this.isStatic = isStatic;
         this.examples = examples;
         this.seeReferences = seeReferences != null ? seeReferences : new ArrayList<>();
+        this.frozen = frozen;
+    }
+
+    /**
+     * Returns an immutable copy of this function with unmodifiable lists.
+     * @return the copy, or this function if it is already frozen
+     */
+    public Function freeze() {
+        if (frozen) {
+            return this;
+        }
+        return new Function(name, description,
+            parameters != null ? List.copyOf(parameters) : List.of(),
+            returnType, returnDescription, nodiscard, isStatic,
+            examples != null ? List.copyOf(examples) : List.of(),
+            List.copyOf(seeReferences), true);
     }
 
     @Override
@@ -0,0 +1,25 @@
+package de.fb.ldg;
+
+/**
+ * Writes the documentation as HTML pages, see {@link HtmlGenerator}.
+ */
+public class HtmlBackend implements OutputBackend {
+
+    @Override
+    public String getName() {
+        return "html";
+    }
+
+    @Override
+    public void generate(Documentation documentation, String output, DocOptions options) {
+        HtmlGenerator.generateHtml(documentation, output, options.html, options.log);
+    }
+
+    /**
+     * HTML keeps the output given with --output, it is the main format.
+     */
+    @Override
+    public String defaultOutput(String output) {
+        return output;
+    }
+}
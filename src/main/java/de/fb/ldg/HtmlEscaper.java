@@ -0,0 +1,79 @@
+package de.fb.ldg;
+
+/**
+ * Escapes text for HTML content and attribute values in a single pass. Runs of characters that
+ * need no escaping are copied as a whole, so text without special characters costs one scan
+ * and one append.
+ */
+public final class HtmlEscaper {
+
+    private HtmlEscaper() {
+    }
+
+    /**
+     * Appends the escaped text to the output.
+     * @param out the output
+     * @param text the text, null appends nothing
+     */
+    public static void escape(StringBuilder out, CharSequence text) {
+        if (text != null) {
+            escape(out, text, 0, text.length());
+        }
+    }
+
+    /**
+     * Appends a range of the text escaped to the output.
+     * @param out the output
+     * @param text the text
+     * @param start the first character to escape
+     * @param end the end of the range, exclusive
+     */
+    public static void escape(StringBuilder out, CharSequence text, int start, int end) {
+        int clean = start;
+        for (int i = start; i < end; i++) {
+            String entity = entity(text.charAt(i));
+            if (entity != null) {
+                out.append(text, clean, i).append(entity);
+                clean = i + 1;
+            }
+        }
+        out.append(text, clean, end);
+    }
+
+    /**
+     * Escapes a string. Strings without special characters are returned as they are.
+     * @param text the text, may be null
+     * @return the escaped text, null for null
+     */
+    public static String escape(String text) {
+        if (text == null) {
+            return null;
+        }
+        for (int i = 0; i < text.length(); i++) {
+            if (entity(text.charAt(i)) != null) {
+                StringBuilder out = new StringBuilder(text.length() + 16);
+                out.append(text, 0, i);
+                escape(out, text, i, text.length());
+                return out.toString();
+            }
+        }
+        return text;
+    }
+
+    private static String entity(char c) {
+        switch (c) {
+            case '&':
+                return "&amp;";
+            case '<':
+                return "&lt;";
+            case '>':
+                return "&gt;";
+            case '"':
+                return "&quot;";
+            case '\'':
+                return "&#39;";
+            default:
+                return null;
+        }
+    }
+}
@@ -1,10 +1,22 @@
 package de.fb.ldg;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
+import java.io.PrintStream;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
 
 /**
  * Generator für HTML-Dokumentationsseiten aus Lua-Code.
@@ -136,6 +148,7 @@ public class HtmlGenerator {
         }
         .parent-class {
             padding: 8px 0;
+            cursor: pointer;
         }
         .parent-class a {
             text-decoration: none;
@@ -143,36 +156,24 @@ public class HtmlGenerator {
         .parent-class a:hover {
             text-decoration: underline;
         }
-        .subclass-list {
-            padding: 0;
+        .namespace-list {
             list-style: none;
-            background: none;
-            border-radius: 0;
-            display: block;
-            margin-left: 20px;
-            line-height: 1.8;
-        }
-        .subclass-list li {
-            margin: 0;
+            margin: 0 0 0 20px;
             padding: 0;
-            border-bottom: none;
-            display: inline;
-        }
-        .subclass-list li:after {
-            content: ", ";
-            color: #6c757d;
-        }
-        .subclass-list li:last-child:after {
-            content: "";
+            line-height: 1.8;
         }
-        .subclass-list a {
+        .namespace-list a {
             text-decoration: none;
-            font-size: 0.85em;
-            font-weight: normal;
+            font-size: 0.95em;
         }
-        .subclass-list a:hover {
+        .namespace-list a:hover {
             text-decoration: underline;
         }
+        .namespace-link {
+            color: #7f8c8d;
+            font-size: 0.85em;
+            margin-left: 5px;
+        }
         .code-examples {
             background: #f8f9fa;
             border: 1px solid #e9ecef;
@@ -198,6 +199,20 @@ public class HtmlGenerator {
             overflow-x: auto;
             white-space: pre;
         }
+        .inherited {
+            background: #f8f9fa;
+            border-left: 4px solid #bdc3c7;
+            padding: 10px;
+            margin: 10px 0;
+        }
+        .inherited h3 {
+            margin: 0 0 5px 0;
+            font-size: 1em;
+        }
+        .inherited a {
+            color: #2980b9;
+            text-decoration: none;
+        }
         .see-also {
             background: #f8f9fa;
             border: 1px solid #e9ecef;
@@ -232,6 +247,51 @@ public class HtmlGenerator {
             font-weight: normal;
             margin-left: 5px;
         }
+        .pages {
+            margin: 10px 0;
+            color: #7f8c8d;
+        }
+        .pages a {
+            color: #3498db;
+            text-decoration: none;
+            margin-right: 5px;
+        }
+        .search {
+            position: relative;
+            float: right;
+        }
+        .search input {
+            padding: 4px 8px;
+            border: none;
+            border-radius: 3px;
+            width: 220px;
+        }
+        #ldg-search-results {
+            display: none;
+            position: absolute;
+            right: 0;
+            z-index: 10;
+            width: 360px;
+            max-height: 400px;
+            overflow-y: auto;
+            background: white;
+            border-radius: 3px;
+            box-shadow: 0 2px 10px rgba(0,0,0,0.2);
+        }
+        #ldg-search-results a {
+            display: block;
+            margin: 0;
+            color: #2c3e50;
+            border-bottom: 1px solid #ecf0f1;
+        }
+        #ldg-search-results a:hover {
+            background: #ecf0f1;
+        }
+        .search-kind {
+            float: right;
+            color: #7f8c8d;
+            font-size: 0.8em;
+        }
         """;
 
     /**
@@ -240,37 +300,213 @@ public class HtmlGenerator {
      * @param outputDir The output directory for HTML files
      */
     public static void generateHtml(Documentation documentation, String outputDir) {
-        try {
-            Path outputPath = Paths.get(outputDir);
-            Files.createDirectories(outputPath);
+        generateHtml(documentation, outputDir, new HtmlOptions());
+    }
+
+    /**
+     * Generates HTML documentation for the given Documentation.
+     * @param documentation The documentation structure to generate HTML for
+     * @param outputDir The output directory for HTML files, or a .zip/.jar archive to write into
+     * @param options Options for the generation
+     */
+    public static void generateHtml(Documentation documentation, String outputDir, HtmlOptions options) {
+        generateHtml(documentation, outputDir, options, System.out);
+    }
+
+    /**
+     * Generates HTML documentation for the given Documentation.
+     * @param documentation The documentation structure to generate HTML for
+     * @param outputDir The output directory for HTML files, or a .zip/.jar archive to write into
+     * @param options Options for the generation
+     * @param log Where warnings and progress messages are written to
+     */
+    public static void generateHtml(Documentation documentation, String outputDir, HtmlOptions options, PrintStream log) {
+        try (PageOutput output = PageOutput.open(Paths.get(outputDir), options)) {
+            PageLayout layout = new PageLayout(documentation, options.pageSize, options.namespacePageSize);
+            layout.inheritance.getCycles().forEach(cycle -> log.println("Warning: Ignoring inheritance cycle " + cycle));
+            List<Callable<Void>> tasks = new ArrayList<>();
+
+            // Pages of an output directory remember what they read, unchanged ones are kept next time
+            BuildManifest manifest = null;
+            if (output instanceof DirectoryOutput directory) {
+                manifest = BuildManifest.load(directory.getRoot(), manifestKey(options), new SymbolFingerprints(layout));
+            }
+            PageTasks pages = new PageTasks(output, options.incremental ? manifest : null, manifest);
 
             // Generate overview page
-            generateOverviewPage(documentation, outputPath);
+            tasks.add(pages.task("index.html", () -> renderOverviewPage(layout, options.theme), Dependencies.NAMESPACES, Dependencies.GLOBALS));
+            for (NamespaceTree.Node namespace : layout.namespaces.getPagedNamespaces()) {
+                tasks.add(pages.task(layout.namespacePage(namespace.name), () -> renderNamespacePage(namespace, layout, options.theme),
+                    Dependencies.NAMESPACES));
+            }
 
             // Generate class pages
             for (Class clazz : documentation.classes) {
-                generateClassPage(clazz, documentation, outputPath);
+                for (int page = 0; page < layout.classPageCount(clazz); page++) {
+                    int pageIndex = page;
+                    tasks.add(pages.task(layout.classPage(clazz.name, page), () -> renderClassPage(clazz, layout, pageIndex, options.theme),
+                        "class:" + clazz.name));
+                }
             }
 
             // Generate global functions and variables page
             if (!documentation.functions.isEmpty() || !documentation.variables.isEmpty()) {
-                generateGlobalsPage(documentation, outputPath);
+                tasks.add(pages.task("globals.html", () -> renderGlobalsPage(layout, options.theme), Dependencies.GLOBALS));
+                int pageCount = layout.globalsPageCount();
+                for (int page = 0; pageCount > 1 && page < pageCount; page++) {
+                    int pageIndex = page;
+                    tasks.add(pages.task(layout.globalsPage(page), () -> renderGlobalsPage(layout, pageIndex, options.theme), Dependencies.GLOBALS));
+                }
+            }
+
+            // Generate search index
+            tasks.add(pages.directoryTask(SearchIndex.DIRECTORY, () -> SearchIndex.build(layout).files(),
+                Dependencies.CLASSES, Dependencies.NAMESPACES, Dependencies.GLOBALS));
+
+            runTasks(tasks, options.threads);
+
+            if (manifest != null) {
+                DirectoryOutput directory = (DirectoryOutput) output;
+                List<String> stale = manifest.stalePages();
+                for (String page : stale) {
+                    directory.delete(page);
+                }
+                manifest.save();
+                log.println("Pages: " + manifest.getRendered() + " rendered, " + manifest.getReused()
+                    + " unchanged since the last run, " + stale.size() + " removed");
             }
 
-            System.out.println("HTML documentation successfully generated in: " + outputPath.toAbsolutePath());
+            output.finish();
+            log.println("HTML documentation successfully generated in: " + output.describe());
 
         } catch (IOException e) {
             throw new RuntimeException("Error generating HTML documentation", e);
         }
     }
 
-    private static void generateOverviewPage(Documentation documentation, Path outputPath) throws IOException {
-        StringBuilder html = new StringBuilder();
-        html.append(getHtmlHeader("Lua Documentation - Overview", ""));
+    /**
+     * Describes the options pages are rendered with, pages rendered with other options are not reused.
+     */
+    private static String manifestKey(HtmlOptions options) {
+        return "pageSize=" + options.pageSize + ",namespacePageSize=" + options.namespacePageSize
+            + ",gzip=" + options.gzip + ",css=" + Integer.toHexString(CSS_STYLES.hashCode()) + ",theme=" + options.theme.key;
+    }
 
-        html.append("<div class=\"container\">\n");
-        html.append(getNavigationBar(""));
+    /**
+     * Creates the render tasks of the pages and records what each page reads.
+     */
+    private static class PageTasks {
+        private final PageOutput output;
+        private final BuildManifest reuse;
+        private final BuildManifest record;
+
+        /**
+         * @param output the output the pages are written to
+         * @param reuse the manifest deciding which pages are up to date, null to render all pages
+         * @param record the manifest receiving the symbols of the rendered pages, or null
+         */
+        PageTasks(PageOutput output, BuildManifest reuse, BuildManifest record) {
+            this.output = output;
+            this.reuse = reuse;
+            this.record = record;
+        }
+
+        /**
+         * @param fileName the file name of the page
+         * @param renderer renders the page
+         * @param ownSymbols the symbols the renderer reads without a lookup, e.g. the rendered class
+         */
+        Callable<Void> task(String fileName, Supplier<String> renderer, String... ownSymbols) {
+            return () -> {
+                if (reuse != null) {
+                    boolean upToDate = reuse.isUpToDate(fileName);
+                    Tracing.cacheLookup("manifest", fileName, upToDate);
+                    if (upToDate) {
+                        return null;
+                    }
+                }
+                Tracing.PageRenderEvent event = new Tracing.PageRenderEvent();
+                event.begin();
+                String html;
+                if (record == null) {
+                    html = renderer.get();
+                    output.write(fileName, html);
+                } else {
+                    Set<String> symbols = new HashSet<>(Arrays.asList(ownSymbols));
+                    html = Dependencies.record(renderer, symbols);
+                    output.write(fileName, html);
+                    record.rendered(fileName, symbols);
+                }
+                if (event.shouldCommit()) {
+                    event.page = fileName;
+                    event.className = ownSymbols.length == 1 && ownSymbols[0].startsWith("class:") ? ownSymbols[0].substring(6) : "";
+                    event.characters = html.length();
+                    event.commit();
+                }
+                return null;
+            };
+        }
+
+        /**
+         * Like {@link #task}, for all files of a directory rendered together, e.g. the search
+         * index. The files are only kept if all of them are up to date.
+         * @param directory the directory of the files relative to the output
+         * @param renderer renders the files, keyed by their path relative to the output
+         * @param symbols all symbols the renderer reads
+         */
+        Callable<Void> directoryTask(String directory, Supplier<Map<String, String>> renderer, String... symbols) {
+            return () -> {
+                if (reuse != null) {
+                    boolean upToDate = reuse.isUpToDateDirectory(directory);
+                    Tracing.cacheLookup("manifest", directory + "/", upToDate);
+                    if (upToDate) {
+                        return null;
+                    }
+                }
+                for (Map.Entry<String, String> file : renderer.get().entrySet()) {
+                    output.write(file.getKey(), file.getValue());
+                    if (record != null) {
+                        record.rendered(file.getKey(), new HashSet<>(Arrays.asList(symbols)));
+                    }
+                }
+                return null;
+            };
+        }
+    }
+
+    /**
+     * Runs the render tasks on a pool of workers. Each worker renders, compresses and writes its pages.
+     */
+    private static void runTasks(List<Callable<Void>> tasks, int threads) throws IOException {
+        try (ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, threads))) {
+            for (Future<Void> future : workers.invokeAll(tasks)) {
+                try {
+                    future.get();
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException io) {
+                        throw io;
+                    }
+                    if (e.getCause() instanceof RuntimeException runtime) {
+                        throw runtime;
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while generating HTML documentation", e);
+        }
+    }
 
+    /**
+     * Renders the overview page (index.html) without writing it.
+     * @param layout The page layout of the documentation to render
+     * @param theme The templates to render with
+     * @return The complete HTML of the page
+     */
+    static String renderOverviewPage(PageLayout layout, Theme theme) {
+        Documentation documentation = layout.documentation;
+        StringBuilder html = new StringBuilder();
         html.append("<h1>Lua Documentation - Overview</h1>\n");
 
         html.append("<div class=\"overview-grid\">\n");
@@ -279,7 +515,7 @@ public class HtmlGenerator {
         if (!documentation.classes.isEmpty()) {
             html.append("<div class=\"overview-card\">\n");
             html.append("<h3>Classes</h3>\n");
-            html.append(generateClassHierarchy(documentation.classes));
+            html.append(generateClassHierarchy(layout.namespaces.getRoot(), layout));
             html.append("</div>\n");
         }
 
@@ -295,355 +531,411 @@ public class HtmlGenerator {
 
         html.append("</div>\n");
 
-        html.append("</div>\n");
-        html.append("</body></html>");
-
-        Files.writeString(outputPath.resolve("index.html"), html.toString());
+        return renderPage(theme, "Lua Documentation - Overview", html);
     }
 
     /**
-     * Generates a hierarchical view of classes, grouping by namespace.
+     * Renders the page of a namespace that has too many classes to be listed on index.html.
+     * @param namespace The namespace to render
+     * @param layout The page layout used for linking
+     * @param theme The templates to render with
+     * @return The complete HTML of the page
      */
-    private static String generateClassHierarchy(List<Class> classes) {
+    static String renderNamespacePage(NamespaceTree.Node namespace, PageLayout layout, Theme theme) {
         StringBuilder html = new StringBuilder();
-        html.append("<ul class=\"class-hierarchy\">\n");
-
-        // Group classes by parent namespace
-        java.util.Map<String, java.util.List<Class>> classGroups = new java.util.HashMap<>();
-        java.util.Set<String> processedClasses = new java.util.HashSet<>();
-
-        for (Class clazz : classes) {
-            String className = clazz.name;
-
-            // Check if this is a nested class (contains dot)
-            if (className.contains(".")) {
-                String[] parts = className.split("\\.");
-                if (parts.length >= 2) {
-                    String parentName = parts[0];
-
-                    // Find if parent class exists
-                    boolean parentExists = classes.stream().anyMatch(c -> c.name.equals(parentName));
-
-                    if (parentExists) {
-                        classGroups.computeIfAbsent(parentName, k -> new java.util.ArrayList<>()).add(clazz);
-                        processedClasses.add(className);
-                    }
-                }
-            }
+        html.append(String.format("<div class=\"class-header\">\n<h1>Namespace %s</h1>\n</div>\n", HtmlEscaper.escape(namespace.name)));
+        if (namespace.getClazz() != null) {
+            html.append(String.format("<p>Class <a href=\"%s\" class=\"class-link\">%s</a></p>\n",
+                layout.classPage(namespace.name, 0), HtmlEscaper.escape(namespace.name)));
         }
+        html.append(String.format("<h2>Classes (%d)</h2>\n", namespace.getClassCount()));
+        html.append(generateClassHierarchy(namespace, layout));
 
-        // First, display parent classes with their children
-        for (Class clazz : classes) {
-            String className = clazz.name;
-
-            // Skip if this class is already processed as a child
-            if (processedClasses.contains(className)) {
-                continue;
-            }
+        return renderPage(theme, "Namespace " + HtmlEscaper.escape(namespace.name), html);
+    }
 
-            // Check if this class has children
-            if (classGroups.containsKey(className)) {
-                html.append("<li>\n");
-                html.append(String.format("<div class=\"parent-class\"><a href=\"%s.html\">%s</a></div>\n",
-                    sanitizeFileName(className), className));
+    /**
+     * Puts the content of a page into the layout of the theme.
+     */
+    private static String renderPage(Theme theme, String title, CharSequence content) {
+        StringBuilder html = new StringBuilder(CSS_STYLES.length() + content.length() + 1024);
+        theme.layout.render(html, title, CSS_STYLES, "", content);
+        return html.toString();
+    }
 
-                html.append("<ul class=\"subclass-list\">\n");
-                for (Class subclass : classGroups.get(className)) {
-                    html.append(String.format("<li><a href=\"%s.html\">%s</a></li>\n",
-                        sanitizeFileName(subclass.name), subclass.name));
-                }
-                html.append("</ul>\n");
-                html.append("</li>\n");
-            } else {
-                // Standalone class
-                html.append(String.format("<li class=\"standalone-class\"><a href=\"%s.html\">%s</a></li>\n",
-                    sanitizeFileName(className), className));
-            }
+    /**
+     * Generates the nested list of all classes below a namespace. Nested namespaces are
+     * collapsible, namespaces with their own page are only linked.
+     */
+    private static String generateClassHierarchy(NamespaceTree.Node namespace, PageLayout layout) {
+        StringBuilder html = new StringBuilder();
+        html.append("<ul class=\"class-hierarchy\">\n");
+        for (NamespaceTree.Node child : namespace.getChildren()) {
+            appendNamespaceNode(html, child, layout);
         }
-
         html.append("</ul>\n");
         return html.toString();
     }
 
-    private static void generateClassPage(Class clazz, Documentation documentation, Path outputPath) throws IOException {
-        StringBuilder html = new StringBuilder();
-        html.append(getHtmlHeader("Class " + clazz.name, "../"));
-
-        html.append("<div class=\"container\">\n");
-        html.append(getNavigationBar(""));
-
-        html.append(String.format("<div class=\"class-header\">\n<h1>Class %s</h1>\n", clazz.name));
-        html.append("</div>\n");
+    private static void appendNamespaceNode(StringBuilder html, NamespaceTree.Node node, PageLayout layout) {
+        String label = node.getClazz() != null
+            ? String.format("<a href=\"%s\">%s</a>", layout.classPage(node.name, 0), HtmlEscaper.escape(node.segment))
+            : HtmlEscaper.escape(node.segment);
 
-        // Inheritance information
-        if (!clazz.parent.isEmpty()) {
-            html.append("<div class=\"inheritance\">\n");
-            html.append("Extends: ");
-            for (int i = 0; i < clazz.parent.size(); i++) {
-                if (i > 0) html.append(", ");
-                String parentName = clazz.parent.get(i);
-                if (classExists(documentation, parentName)) {
-                    html.append(String.format("<a href=\"%s.html\" class=\"class-link\">%s</a>",
-                        parentName, parentName));
-                } else {
-                    html.append(parentName);
-                }
+        if (node.getChildren().isEmpty()) {
+            html.append("<li class=\"standalone-class\">").append(label).append("</li>\n");
+        } else if (node.hasOwnPage()) {
+            html.append(String.format("<li><div class=\"parent-class\">%s<a href=\"%s\" class=\"namespace-link\">%d classes</a></div></li>\n",
+                label, layout.namespacePage(node.name), node.getClassCount()));
+        } else {
+            html.append("<li>\n<details open>\n<summary class=\"parent-class\">").append(label).append("</summary>\n");
+            html.append("<ul class=\"namespace-list\">\n");
+            for (NamespaceTree.Node child : node.getChildren()) {
+                appendNamespaceNode(html, child, layout);
             }
-            html.append("\n</div>\n");
+            html.append("</ul>\n</details>\n</li>\n");
         }
+    }
 
-        // Fields
-        if (!clazz.fields.isEmpty()) {
-            html.append("<h2>Fields</h2>\n");
-            for (Field field : clazz.fields) {
-                String cssClass = field.visibility.equals("private") ? "field private" : "field";
-                html.append(String.format("<div class=\"%s\">\n", cssClass));
-                html.append(String.format("<strong>%s</strong>: <span class=\"type\">%s</span>\n",
-                    field.name, linkifyType(field.type, documentation)));
-
-                // Add modifiers in documentation section
-                if (!field.visibility.isEmpty()) {
-                    html.append(String.format("<div><strong>Visibility:</strong> %s</div>\n", field.visibility));
-                }
-
-                if (!field.description.isEmpty()) {
-                    html.append(String.format("<div class=\"description\">%s</div>\n", field.description));
-                }
-                html.append("</div>\n");
+    /**
+     * Renders one page of a class without writing it. Classes with more members than the page size
+     * are split into several pages, fields first and methods afterwards.
+     * @param clazz The class to render
+     * @param layout The page layout used for linking
+     * @param page The zero based page index
+     * @param theme The templates to render with
+     * @return The complete HTML of the page
+     */
+    static String renderClassPage(Class clazz, PageLayout layout, int page, Theme theme) {
+        // Inheritance information
+        StringBuilder parents = new StringBuilder();
+        for (int i = 0; i < clazz.parent.size(); i++) {
+            if (i > 0) parents.append(", ");
+            String parentName = clazz.parent.get(i);
+            if (layout.classExists(parentName)) {
+                parents.append(String.format("<a href=\"%s\" class=\"class-link\">%s</a>",
+                    layout.classPage(parentName, 0), HtmlEscaper.escape(parentName)));
+            } else {
+                HtmlEscaper.escape(parents, parentName);
             }
         }
 
-        // Methods
-        if (!clazz.functions.isEmpty()) {
-            html.append("<h2>Methods</h2>\n");
-            for (Function function : clazz.functions) {
-                String cssClass = function.isStatic ? "method static" : "method";
-                html.append(String.format("<div class=\"%s\" id=\"%s\">\n", cssClass, sanitizeFunctionId(function.name)));
-
-                html.append("<strong>");
-                html.append(function.name).append("(");
-
-                for (int i = 0; i < function.parameters.size(); i++) {
-                    if (i > 0) html.append(", ");
-                    Function.Parameter param = function.parameters.get(i);
-                    html.append(String.format("<span class=\"param\">%s: %s</span>",
-                        param.name, linkifyType(param.type, documentation)));
-                }
-                html.append(")");
-
-                if (function.returnType != null && !function.returnType.isEmpty()) {
-                    html.append(": <span class=\"type\">").append(linkifyType(function.returnType, documentation)).append("</span>");
-                }
-                html.append("</strong>\n");
+        int pageCount = layout.classPageCount(clazz);
+        String pageLinks = pageCount > 1 ? generatePageLinks(pageCount, page, p -> layout.classPage(clazz.name, p)) : "";
 
-                // Add modifiers in documentation section
-                if (function.isStatic) {
-                    html.append("<div><strong>Modifier:</strong> static</div>\n");
-                }
+        // Members of this page: fields come first, methods afterwards
+        int from = page * layout.pageSize;
+        int to = Math.min(from + layout.pageSize, clazz.fields.size() + clazz.functions.size());
+        List<Field> fields = clazz.fields.subList(Math.min(from, clazz.fields.size()), Math.min(to, clazz.fields.size()));
+        List<Function> functions = clazz.functions.subList(
+            Math.max(0, from - clazz.fields.size()), Math.max(0, to - clazz.fields.size()));
 
-                if (function.nodiscard) {
-                    html.append("<div><strong>Note:</strong> @nodiscard - Return value should not be ignored</div>\n");
-                }
-
-                if (!function.description.isEmpty()) {
-                    html.append(String.format("<div class=\"description\">%s</div>\n", function.description));
-                }
+        StringBuilder fieldsHtml = new StringBuilder();
+        for (Field field : fields) {
+            String cssClass = field.visibility.equals("private") ? "field private" : "field";
+            theme.field.render(fieldsHtml, cssClass, HtmlEscaper.escape(field.name), linkifyType(field.type, layout), field.visibility, field.description);
+        }
 
-                if (!function.parameters.isEmpty()) {
-                    html.append("<div class=\"param-list\"><strong>Parameters:</strong><ul>\n");
-                    for (Function.Parameter param : function.parameters) {
-                        html.append(String.format("<li><span class=\"param\">%s</span> (<span class=\"type\">%s</span>): %s</li>\n",
-                            param.name, linkifyType(param.type, documentation), param.description));
-                    }
-                    html.append("</ul></div>\n");
-                }
+        StringBuilder methodsHtml = new StringBuilder();
+        for (Function function : functions) {
+            appendFunction(methodsHtml, function, clazz, layout, theme);
+        }
 
-                if (function.returnType != null && !function.returnType.isEmpty() &&
-                    !function.returnDescription.isEmpty()) {
-                    html.append(String.format("<div><strong>Returns:</strong> %s</div>\n",
-                        function.returnDescription));
-                }
+        StringBuilder html = new StringBuilder();
+        theme.classPage.render(html, HtmlEscaper.escape(clazz.name), parents, pageLinks, fieldsHtml, methodsHtml,
+            page == 0 ? generateInheritedMembers(clazz, layout) : "",
+            page == 0 ? generateReferencedBy(clazz, layout) : "",
+            // See Also section for class
+            page == 0 && !clazz.seeReferences.isEmpty() ? generateSeeAlsoSection(clazz.seeReferences, layout) : "");
 
-                // Add code examples if present
-                if (!function.examples.isEmpty()) {
-                    html.append(generateCodeExamples(function.examples));
-                }
+        return renderPage(theme, "Class " + HtmlEscaper.escape(clazz.name), html);
+    }
 
-                // Add @see references if present
-                if (!function.seeReferences.isEmpty()) {
-                    html.append(generateSeeAlsoSection(function.seeReferences, documentation));
-                }
+    /**
+     * Renders a method of a class or a global function with the function template of the theme.
+     * @param clazz The class declaring the method, or null for a global function
+     */
+    private static void appendFunction(StringBuilder html, Function function, Class clazz, PageLayout layout, Theme theme) {
+        StringBuilder signature = new StringBuilder();
+        for (int i = 0; i < function.parameters.size(); i++) {
+            if (i > 0) signature.append(", ");
+            Function.Parameter param = function.parameters.get(i);
+            signature.append("<span class=\"param\">");
+            HtmlEscaper.escape(signature, param.name);
+            signature.append(": ");
+            appendType(signature, param.type, layout);
+            signature.append("</span>");
+        }
 
-                html.append("</div>\n");
+        boolean hasReturnType = function.returnType != null && !function.returnType.isEmpty();
+
+        // Modifiers and overrides are only shown for methods
+        String overrides = "";
+        boolean isStatic = false;
+        boolean nodiscard = false;
+        if (clazz != null) {
+            String overridden = layout.inheritance.overriddenAncestor(clazz.name, function.name);
+            if (overridden != null) {
+                overrides = String.format("<a href=\"%s#%s\" class=\"class-link\">%s</a>",
+                    layout.methodPage(overridden, function.name), layout.ids.methodAnchor(overridden, function.name), HtmlEscaper.escape(overridden));
             }
+            isStatic = function.isStatic;
+            nodiscard = function.nodiscard;
         }
 
-        // See Also section for class
-        if (!clazz.seeReferences.isEmpty()) {
-            html.append(generateSeeAlsoSection(clazz.seeReferences, documentation));
+        StringBuilder parameters = new StringBuilder();
+        for (Function.Parameter param : function.parameters) {
+            parameters.append("<li><span class=\"param\">");
+            HtmlEscaper.escape(parameters, param.name);
+            parameters.append("</span> (<span class=\"type\">");
+            appendType(parameters, param.type, layout);
+            parameters.append("</span>): ").append(param.description).append("</li>\n");
         }
 
-        html.append("</div>\n");
-        html.append("</body></html>");
-
-        Files.writeString(outputPath.resolve(sanitizeFileName(clazz.name) + ".html"), html.toString());
+        theme.function.render(html,
+            isStatic ? "method static" : "method",
+            layout.ids.anchor(function),
+            HtmlEscaper.escape(function.name),
+            signature,
+            hasReturnType ? linkifyType(function.returnType, layout) : "",
+            overrides,
+            isStatic ? "static" : "",
+            nodiscard ? "nodiscard" : "",
+            function.description,
+            parameters,
+            hasReturnType ? function.returnDescription : "",
+            function.examples.isEmpty() ? "" : generateCodeExamples(function.examples),
+            function.seeReferences.isEmpty() ? "" : generateSeeAlsoSection(function.seeReferences, layout));
     }
 
-    private static void generateGlobalsPage(Documentation documentation, Path outputPath) throws IOException {
-        StringBuilder html = new StringBuilder();
-        html.append(getHtmlHeader("Global Functions and Variables", ""));
-
-        html.append("<div class=\"container\">\n");
-        html.append(getNavigationBar(""));
-
-        html.append("<h1>Global Functions and Variables</h1>\n");
-
-        // Global Functions
-        if (!documentation.functions.isEmpty()) {
-            html.append("<h2>Global Functions</h2>\n");
-            for (Function function : documentation.functions) {
-                html.append(String.format("<div class=\"method\" id=\"%s\">\n", sanitizeFunctionId(function.name)));
+    /**
+     * Generates the list of inherited members of a class, grouped by the ancestor declaring them.
+     * @param clazz The class
+     * @param layout The page layout used to resolve links
+     * @return HTML for the inherited members, empty if the class inherits nothing
+     */
+    private static String generateInheritedMembers(Class clazz, PageLayout layout) {
+        List<Inheritance.InheritedMembers> inherited = layout.inheritance.inheritedMembers(clazz.name);
+        if (inherited.isEmpty()) {
+            return "";
+        }
 
-                html.append(String.format("<strong>%s(", function.name));
-                for (int i = 0; i < function.parameters.size(); i++) {
+        StringBuilder html = new StringBuilder();
+        html.append("<h2>Inherited Members</h2>\n");
+        for (Inheritance.InheritedMembers members : inherited) {
+            html.append("<div class=\"inherited\">\n");
+            html.append(String.format("<h3>From <a href=\"%s\" class=\"class-link\">%s</a></h3>\n",
+                layout.classPage(members.ancestor, 0), HtmlEscaper.escape(members.ancestor)));
+
+            if (!members.fields.isEmpty()) {
+                html.append("<div><strong>Fields:</strong> ");
+                for (int i = 0; i < members.fields.size(); i++) {
                     if (i > 0) html.append(", ");
-                    Function.Parameter param = function.parameters.get(i);
-                    html.append(String.format("<span class=\"param\">%s: %s</span>",
-                        param.name, linkifyType(param.type, documentation)));
-                }
-                html.append(")");
-
-                if (function.returnType != null && !function.returnType.isEmpty()) {
-                    html.append(": <span class=\"type\">").append(linkifyType(function.returnType, documentation)).append("</span>");
-                }
-                html.append("</strong>\n");
-
-                if (!function.description.isEmpty()) {
-                    html.append(String.format("<div class=\"description\">%s</div>\n", function.description));
-                }
-
-                if (!function.parameters.isEmpty()) {
-                    html.append("<div class=\"param-list\"><strong>Parameters:</strong><ul>\n");
-                    for (Function.Parameter param : function.parameters) {
-                        html.append(String.format("<li><span class=\"param\">%s</span> (<span class=\"type\">%s</span>): %s</li>\n",
-                            param.name, linkifyType(param.type, documentation), param.description));
-                    }
-                    html.append("</ul></div>\n");
-                }
-
-                if (function.returnType != null && !function.returnType.isEmpty() &&
-                    !function.returnDescription.isEmpty()) {
-                    html.append(String.format("<div><strong>Returns:</strong> %s</div>\n",
-                        function.returnDescription));
-                }
-
-                // Add code examples if present
-                if (!function.examples.isEmpty()) {
-                    html.append(generateCodeExamples(function.examples));
+                    Field field = members.fields.get(i);
+                    HtmlEscaper.escape(html, field.name);
+                    html.append(": <span class=\"type\">");
+                    appendType(html, field.type, layout);
+                    html.append("</span>");
                 }
+                html.append("</div>\n");
+            }
 
-                // Add @see references if present
-                if (!function.seeReferences.isEmpty()) {
-                    html.append(generateSeeAlsoSection(function.seeReferences, documentation));
+            if (!members.functions.isEmpty()) {
+                html.append("<div><strong>Methods:</strong> ");
+                for (int i = 0; i < members.functions.size(); i++) {
+                    if (i > 0) html.append(", ");
+                    Function function = members.functions.get(i);
+                    html.append(String.format("<a href=\"%s#%s\">%s</a>", layout.methodPage(members.ancestor, function.name),
+                        layout.ids.anchor(function), HtmlEscaper.escape(function.name)));
                 }
-
                 html.append("</div>\n");
             }
+            html.append("</div>\n");
         }
+        return html.toString();
+    }
 
-        // Variables
-        if (!documentation.variables.isEmpty()) {
-            html.append("<h2>Variables</h2>\n");
-            for (Variable variable : documentation.variables) {
-                String cssClass = variable.isLocal ? "variable local" : "variable";
-                html.append(String.format("<div class=\"%s\">\n", cssClass));
-
-                html.append("<strong>");
-                html.append(variable.name).append("</strong>: <span class=\"type\">")
-                    .append(linkifyType(variable.type, documentation)).append("</span>\n");
+    /**
+     * Generates the "Referenced by" list of a class from the reference index of the layout.
+     * @param clazz The class
+     * @param layout The page layout used to resolve links
+     * @return HTML for the references, empty if the class is not referenced
+     */
+    private static String generateReferencedBy(Class clazz, PageLayout layout) {
+        List<ReferenceIndex.Reference> references = layout.references.referencesTo(clazz.name);
+        if (references.isEmpty()) {
+            return "";
+        }
 
-                // Add modifiers in documentation section
-                if (variable.isLocal) {
-                    html.append("<div><strong>Scope:</strong> local</div>\n");
-                } else {
-                    html.append("<div><strong>Scope:</strong> global</div>\n");
+        StringBuilder html = new StringBuilder();
+        html.append("<div class=\"see-also\">\n<h4>Referenced by:</h4>\n<ul>\n");
+        for (ReferenceIndex.Reference reference : references) {
+            String page = layout.references.pageOf(reference);
+            String label;
+            String anchor = "";
+            if (reference.owner == null) {
+                label = reference.member;
+                if (reference.kind != ReferenceIndex.Kind.VARIABLE) {
+                    anchor = "#" + layout.ids.globalFunctionAnchor(reference.member);
                 }
-
-                if (!variable.description.isEmpty()) {
-                    html.append(String.format("<div class=\"description\">%s</div>\n", variable.description));
+            } else if (reference.member == null) {
+                label = reference.owner;
+            } else {
+                label = reference.owner + "." + reference.member;
+                if (reference.kind != ReferenceIndex.Kind.FIELD) {
+                    anchor = "#" + layout.ids.methodAnchor(reference.owner, reference.member);
                 }
-
-                html.append("</div>\n");
             }
+            html.append(String.format("<li><a href=\"%s%s\">%s</a><span class=\"see-description\">%s</span></li>\n",
+                page, anchor, HtmlEscaper.escape(label), reference.kind.name().toLowerCase(Locale.ROOT)));
+        }
+        html.append("</ul>\n</div>\n");
+        return html.toString();
+    }
+
+    /**
+     * Renders globals.html without writing it. If the global elements do not fit on a single page,
+     * this is an index of the numbered pages rendered by {@link #renderGlobalsPage(PageLayout, int, Theme)}.
+     * @param layout The page layout to render
+     * @param theme The templates to render with
+     * @return The complete HTML of the page
+     */
+    static String renderGlobalsPage(PageLayout layout, Theme theme) {
+        int pageCount = layout.globalsPageCount();
+        if (pageCount == 1) {
+            return renderGlobalsPage(layout, 0, theme);
         }
 
-        html.append("</div>\n");
-        html.append("</body></html>");
+        Documentation documentation = layout.documentation;
+        StringBuilder html = new StringBuilder();
+        html.append("<h1>Global Functions and Variables</h1>\n");
+        html.append("<ul class=\"overview-list\">\n");
+        int total = documentation.functions.size() + documentation.variables.size();
+        for (int page = 0; page < pageCount; page++) {
+            int from = page * layout.pageSize;
+            int to = Math.min(from + layout.pageSize, total) - 1;
+            html.append(String.format("<li><a href=\"%s\">Page %d</a>: %s &ndash; %s</li>\n",
+                layout.globalsPage(page), page + 1, HtmlEscaper.escape(globalElementName(documentation, from)),
+                HtmlEscaper.escape(globalElementName(documentation, to))));
+        }
+        html.append("</ul>\n");
 
-        Files.writeString(outputPath.resolve("globals.html"), html.toString());
+        return renderPage(theme, "Global Functions and Variables", html);
     }
 
-    private static String getHtmlHeader(String title, String relativePath) {
-        return String.format("""
-            <!DOCTYPE html>
-            <html lang="en">
-            <head>
-                <meta charset="UTF-8">
-                <meta name="viewport" content="width=device-width, initial-scale=1.0">
-                <title>%s</title>
-                <style>%s</style>
-            </head>
-            <body>
-            """, title, CSS_STYLES);
+    private static String globalElementName(Documentation documentation, int index) {
+        if (index < documentation.functions.size()) {
+            return documentation.functions.get(index).name + "()";
+        }
+        return documentation.variables.get(index - documentation.functions.size()).name;
     }
 
-    private static String getNavigationBar(String relativePath) {
-        return String.format("""
-            <div class="navigation">
-                <a href="%sindex.html">🏠 Overview</a>
-                <a href="%sglobals.html">🌐 Global Elements</a>
-            </div>
-            """, relativePath, relativePath);
+    /**
+     * Renders one page of global functions and variables without writing it.
+     * @param layout The page layout to render
+     * @param page The zero based page index
+     * @param theme The templates to render with
+     * @return The complete HTML of the page
+     */
+    static String renderGlobalsPage(PageLayout layout, int page, Theme theme) {
+        Documentation documentation = layout.documentation;
+
+        int pageCount = layout.globalsPageCount();
+        String pageLinks = pageCount > 1 ? generatePageLinks(pageCount, page, layout::globalsPage) : "";
+
+        // Elements of this page: functions come first, variables afterwards
+        int from = page * layout.pageSize;
+        int to = Math.min(from + layout.pageSize, documentation.functions.size() + documentation.variables.size());
+        int functionCount = documentation.functions.size();
+        List<Function> functions = documentation.functions.subList(Math.min(from, functionCount), Math.min(to, functionCount));
+        List<Variable> variables = documentation.variables.subList(Math.max(0, from - functionCount), Math.max(0, to - functionCount));
+
+        StringBuilder functionsHtml = new StringBuilder();
+        for (Function function : functions) {
+            appendFunction(functionsHtml, function, null, layout, theme);
+        }
+
+        StringBuilder variablesHtml = new StringBuilder();
+        for (Variable variable : variables) {
+            theme.variable.render(variablesHtml,
+                variable.isLocal ? "variable local" : "variable",
+                HtmlEscaper.escape(variable.name),
+                linkifyType(variable.type, layout),
+                variable.isLocal ? "local" : "global",
+                variable.description);
+        }
+
+        StringBuilder html = new StringBuilder();
+        theme.globalsPage.render(html, pageLinks, functionsHtml, variablesHtml);
+
+        return renderPage(theme, "Global Functions and Variables", html);
     }
 
-    private static boolean classExists(Documentation documentation, String className) {
-        for (Class clazz : documentation.classes) {
-            if (clazz.name.equals(className)) {
-                return true;
+    /**
+     * Generates the links between the pages of a split class or of the split globals.
+     */
+    private static String generatePageLinks(int pageCount, int currentPage, IntFunction<String> pageName) {
+        StringBuilder html = new StringBuilder();
+        html.append("<div class=\"pages\">Page: ");
+        for (int p = 0; p < pageCount; p++) {
+            if (p == currentPage) {
+                html.append(String.format("<strong>%d</strong> ", p + 1));
+            } else {
+                html.append(String.format("<a href=\"%s\">%d</a> ", pageName.apply(p), p + 1));
             }
         }
-        return false;
+        html.append("</div>\n");
+        return html.toString();
     }
 
     /**
      * Converts a type string to HTML with potential class links.
      * @param type the type string (e.g. "MyDocumentedClass", "string?", "MyClass|number")
-     * @param documentation the documentation to check for existing classes
-     * @return HTML string with linked types where applicable
+     * @param layout the page layout to check for existing classes
+     * @return HTML with linked types where applicable, the type itself if it is null or empty
      */
-    private static String linkifyType(String type, Documentation documentation) {
+    private static CharSequence linkifyType(String type, PageLayout layout) {
         if (type == null || type.isEmpty()) {
             return type;
         }
+        StringBuilder html = new StringBuilder(type.length() + 48);
+        appendType(html, type, layout);
+        return html;
+    }
 
-        // First escape all HTML characters in the type
-        type = escapeHtml(type);
+    /**
+     * Appends a type with links to documented classes. The raw names of the type are looked up
+     * as they are and only escaped when they are written.
+     */
+    private static void appendType(StringBuilder html, String type, PageLayout layout) {
+        if (type == null || type.isEmpty()) {
+            html.append(type);
+            return;
+        }
 
-        // Handle union types (e.g., "string|MyClass|number")
-        if (type.contains("|")) {
-            String[] parts = type.split("\\|");
-            StringBuilder result = new StringBuilder();
-            for (int i = 0; i < parts.length; i++) {
-                if (i > 0) result.append("|");
-                result.append(linkifyTypeEscaped(parts[i].trim(), documentation));
-            }
-            return result.toString();
+        if (type.indexOf('|') < 0) {
+            appendTypePart(html, type, layout);
+            return;
         }
 
-        return linkifyTypeEscaped(type, documentation);
+        // Handle union types (e.g., "string|MyClass|number"), trailing empty parts are dropped
+        int end = type.length();
+        while (end > 0 && type.charAt(end - 1) == '|') {
+            end--;
+        }
+        int start = 0;
+        while (start < end) {
+            int separator = type.indexOf('|', start);
+            if (separator < 0 || separator > end) {
+                separator = end;
+            }
+            if (start > 0) html.append("|");
+            appendTypePart(html, type.substring(start, separator).trim(), layout);
+            start = separator + 1;
+        }
     }
 
-    private static String linkifyTypeEscaped(String type, Documentation documentation) {
+    private static void appendTypePart(StringBuilder html, String type, PageLayout layout) {
         // Handle optional types (e.g., "MyClass?")
         boolean isOptional = type.endsWith("?");
         String baseType = isOptional ? type.substring(0, type.length() - 1) : type;
@@ -654,92 +946,50 @@ public class HtmlGenerator {
             baseType = baseType.substring(0, baseType.length() - 2);
         }
 
-        // Handle generic types (e.g., "List&lt;MyClass&gt;", "table&lt;string, any&gt;")
-        if (baseType.contains("&lt;") && baseType.contains("&gt;")) {
-            int start = baseType.indexOf("&lt;");
-            int end = baseType.lastIndexOf("&gt;");
-            String containerType = baseType.substring(0, start);
-            String innerType = baseType.substring(start + 4, end); // +4 for "&lt;" length
+        // Handle generic types (e.g., "List<MyClass>", "table<string, any>")
+        int open = baseType.indexOf('<');
+        int close = baseType.lastIndexOf('>');
+        if (open >= 0 && close > open) {
+            appendClassName(html, baseType.substring(0, open), layout);
+            html.append("&lt;");
 
-            // Unescape the container type for class checking
-            String unescapedContainer = unescapeHtml(containerType);
-            String linkedContainer = classExists(documentation, unescapedContainer) ?
-                String.format("<a href=\"%s.html\" class=\"class-link\">%s</a>", sanitizeFileName(unescapedContainer), containerType) :
-                containerType;
-
-            // Handle comma-separated types in generics (e.g., "string, any" in "table&lt;string, any&gt;")
-            String linkedInner;
-            if (innerType.contains(",")) {
-                // Split by comma and process each type separately
+            // Handle comma-separated types in generics (e.g., "string, any" in "table<string, any>")
+            String innerType = baseType.substring(open + 1, close);
+            if (innerType.indexOf(',') >= 0) {
                 String[] innerTypes = innerType.split(",");
-                StringBuilder innerResult = new StringBuilder();
                 for (int i = 0; i < innerTypes.length; i++) {
-                    if (i > 0) innerResult.append(", ");
-                    String trimmedInner = innerTypes[i].trim();
-                    String unescapedInner = unescapeHtml(trimmedInner);
-                    if (classExists(documentation, unescapedInner)) {
-                        innerResult.append(String.format("<a href=\"%s.html\" class=\"class-link\">%s</a>",
-                            sanitizeFileName(unescapedInner), trimmedInner));
-                    } else {
-                        innerResult.append(trimmedInner);
-                    }
+                    if (i > 0) html.append(", ");
+                    appendClassName(html, innerTypes[i].trim(), layout);
                 }
-                linkedInner = innerResult.toString();
             } else {
-                String unescapedInner = unescapeHtml(innerType);
-                linkedInner = classExists(documentation, unescapedInner) ?
-                    String.format("<a href=\"%s.html\" class=\"class-link\">%s</a>", sanitizeFileName(unescapedInner), innerType) :
-                    innerType;
+                appendClassName(html, innerType, layout);
             }
-
-            baseType = linkedContainer + "&lt;" + linkedInner + "&gt;";
+            html.append("&gt;");
         } else {
             // Simple type - check if it's a class (including nested classes with dots)
-            String unescapedType = unescapeHtml(baseType);
-            if (classExists(documentation, unescapedType)) {
-                baseType = String.format("<a href=\"%s.html\" class=\"class-link\">%s</a>", sanitizeFileName(unescapedType), baseType);
-            }
+            appendClassName(html, baseType, layout);
         }
 
         // Reconstruct the type with modifiers
-        String result = baseType;
         if (isArray) {
-            result += "[]";
+            html.append("[]");
         }
         if (isOptional) {
-            result += "?";
+            html.append("?");
         }
-
-        return result;
     }
 
     /**
-     * Escapes HTML special characters in a string.
+     * Appends a name, linked if a class with this name is documented.
      */
-    private static String escapeHtml(String text) {
-        if (text == null) return null;
-        return text.replace("&", "&amp;")
-                   .replace("<", "&lt;")
-                   .replace(">", "&gt;")
-                   .replace("\"", "&quot;")
-                   .replace("'", "&#39;");
-    }
-
-    /**
-     * Unescapes HTML entities back to normal characters for class name checking.
-     */
-    private static String unescapeHtml(String text) {
-        if (text == null) return null;
-        return text.replace("&amp;", "&")
-                   .replace("&lt;", "<")
-                   .replace("&gt;", ">")
-                   .replace("&quot;", "\"")
-                   .replace("&#39;", "'");
-    }
-
-    private static String sanitizeFileName(String className) {
-        // Replace all non-alphanumeric characters with underscores
-        return className.replaceAll("[^a-zA-Z0-9]", "_");
+    private static void appendClassName(StringBuilder html, String name, PageLayout layout) {
+        if (layout.classExists(name)) {
+            html.append("<a href=\"").append(layout.classPage(name, 0)).append("\" class=\"class-link\">");
+            HtmlEscaper.escape(html, name);
+            html.append("</a>");
+        } else {
+            HtmlEscaper.escape(html, name);
+        }
     }
 
     /**
@@ -754,7 +1004,7 @@ public class HtmlGenerator {
 
         for (String example : examples) {
             html.append("<div class=\"code-example\">");
-            html.append(escapeHtml(example));
+            HtmlEscaper.escape(html, example);
             html.append("</div>\n");
         }
 
@@ -765,21 +1015,23 @@ public class HtmlGenerator {
     /**
      * Generates the "See Also" section for a class.
      * @param seeReferences The list of references for the "See Also" section
-     * @param documentation The documentation structure to link to
+     * @param layout The page layout to link to
      * @return HTML string for the "See Also" section
      */
-    private static String generateSeeAlsoSection(List<SeeReference> seeReferences, Documentation documentation) {
+    private static String generateSeeAlsoSection(List<SeeReference> seeReferences, PageLayout layout) {
         StringBuilder html = new StringBuilder();
         html.append("<div class=\"see-also\">\n");
         html.append("<h4>See Also</h4>\n");
         html.append("<ul>\n");
         for (SeeReference ref : seeReferences) {
-            String linkHtml = generateReferenceLink(ref, documentation);
+            String linkHtml = generateReferenceLink(ref, layout);
             html.append(String.format("<li>%s", linkHtml));
 
             // Add description if present
             if (!ref.description.isEmpty()) {
-                html.append(String.format("<span class=\"see-description\">- %s</span>", escapeHtml(ref.description)));
+                html.append("<span class=\"see-description\">- ");
+                HtmlEscaper.escape(html, ref.description);
+                html.append("</span>");
             }
 
             html.append("</li>\n");
@@ -792,22 +1044,23 @@ public class HtmlGenerator {
     /**
      * Generates a link for a see reference based on its type.
      * @param ref The see reference to generate a link for
-     * @param documentation The documentation structure to check against
+     * @param layout The page layout to check against
      * @return HTML string with link if possible, otherwise just the name
      */
-    private static String generateReferenceLink(SeeReference ref, Documentation documentation) {
+    private static String generateReferenceLink(SeeReference ref, PageLayout layout) {
         String name = ref.referenceName;
+        String label = HtmlEscaper.escape(name);
 
         switch (ref.type) {
             case CLASS:
-                if (classExists(documentation, name)) {
-                    return String.format("<a href=\"%s.html\">%s</a>", sanitizeFileName(name), name);
+                if (layout.classExists(name)) {
+                    return String.format("<a href=\"%s\">%s</a>", layout.classPage(name, 0), label);
                 }
                 break;
 
             case GLOBAL_FUNCTION:
-                if (globalFunctionExists(documentation, name)) {
-                    return String.format("<a href=\"globals.html#%s\">%s</a>", sanitizeFunctionId(name), name);
+                if (layout.globalFunctionExists(name)) {
+                    return String.format("<a href=\"%s#%s\">%s</a>", layout.globalFunctionPage(name), layout.ids.globalFunctionAnchor(name), label);
                 }
                 break;
 
@@ -818,40 +1071,20 @@ public class HtmlGenerator {
                 if (parts.length >= 2) {
                     String className = parts[0];
                     String methodName = parts[1];
-                    if (classExists(documentation, className)) {
-                        return String.format("<a href=\"%s.html#%s\">%s</a>",
-                            sanitizeFileName(className), sanitizeFunctionId(methodName), name);
+                    if (layout.classExists(className)) {
+                        return String.format("<a href=\"%s#%s\">%s</a>",
+                            layout.methodPage(className, methodName), layout.ids.methodAnchor(className, methodName), label);
                     }
                 } else {
                     // Could be a global function
-                    if (globalFunctionExists(documentation, name)) {
-                        return String.format("<a href=\"globals.html#%s\">%s</a>", sanitizeFunctionId(name), name);
+                    if (layout.globalFunctionExists(name)) {
+                        return String.format("<a href=\"%s#%s\">%s</a>", layout.globalFunctionPage(name), layout.ids.globalFunctionAnchor(name), label);
                     }
                 }
                 break;
         }
 
         // If no link can be created, just return the name
-        return name;
-    }
-
-    /**
-     * Checks if a global function exists in the documentation.
-     * @param documentation The documentation to search
-     * @param functionName The name of the function to find
-     * @return true if the function exists, false otherwise
-     */
-    private static boolean globalFunctionExists(Documentation documentation, String functionName) {
-        return documentation.functions.stream()
-            .anyMatch(function -> function.name.equals(functionName));
-    }
-
-    /**
-     * Sanitizes a function name for use as an HTML anchor ID.
-     * @param functionName The function name to sanitize
-     * @return A sanitized string suitable for use as an HTML ID
-     */
-    private static String sanitizeFunctionId(String functionName) {
-        return functionName.replaceAll("[^a-zA-Z0-9_-]", "_");
+        return label;
     }
 }
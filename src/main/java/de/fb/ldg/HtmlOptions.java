@@ -0,0 +1,55 @@
+package de.fb.ldg;
+
+import java.util.zip.Deflater;
+
+/**
+ * Options for the HTML generation.
+ */
+public class HtmlOptions {
+
+    /**
+     * Default maximum number of elements on one page.
+     */
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    /**
+     * Default maximum number of classes of a namespace listed on the overview page.
+     */
+    public static final int DEFAULT_NAMESPACE_PAGE_SIZE = 200;
+
+    /**
+     * Maximum number of global elements or class members on one page before it is split.
+     */
+    public int pageSize = DEFAULT_PAGE_SIZE;
+
+    /**
+     * Namespaces with more classes are listed on their own page instead of the overview page, 0 to never split.
+     */
+    public int namespacePageSize = DEFAULT_NAMESPACE_PAGE_SIZE;
+
+    /**
+     * Number of workers rendering, compressing and writing pages.
+     */
+    public int threads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * Whether a gzip compressed copy (.gz) is written next to every file.
+     */
+    public boolean gzip = false;
+
+    /**
+     * Whether pages of an output directory whose inputs did not change since the last run are kept
+     * instead of being rendered again, see {@link BuildManifest}.
+     */
+    public boolean incremental = true;
+
+    /**
+     * The templates the pages are rendered with.
+     */
+    public Theme theme = Theme.builtIn();
+
+    /**
+     * Deflate level (0-9, -1 for the default) used when writing into a ZIP archive.
+     */
+    public int compressionLevel = Deflater.DEFAULT_COMPRESSION;
+}
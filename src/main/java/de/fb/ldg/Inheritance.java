@@ -0,0 +1,273 @@
+package de.fb.ldg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Resolves the members every class inherits through {@link Class#parent}.
+ *
+ * <p>The ancestors of a class are linearized depth first and left to right: the first parent,
+ * its ancestors, the second parent and so on, every class only once. This is the order in which
+ * a chain of {@code __index} lookups finds a member.</p>
+ *
+ * <p>Parent edges that form a cycle are found first, with the strongly connected components of
+ * the class hierarchy (Tarjan). Within each cycle a depth first walk starting at the smallest
+ * class name decides which edges close it; these edges are ignored for every class and listed by
+ * {@link #getCycles()}. The remaining hierarchy has no cycles, so every linearization is memoized
+ * and every class and every parent edge is visited once.</p>
+ *
+ * <p>A member is inherited from the first ancestor in that order declaring it, unless the class
+ * itself declares a member with the same name, in which case the own method overrides it.</p>
+ */
+public class Inheritance {
+
+    /**
+     * The members a class inherits from one ancestor.
+     */
+    public static class InheritedMembers {
+        /**
+         * The ancestor declaring the members.
+         */
+        public final String ancestor;
+        public final List<Field> fields;
+        public final List<Function> functions;
+
+        InheritedMembers(String ancestor, List<Field> fields, List<Function> functions) {
+            this.ancestor = ancestor;
+            this.fields = fields;
+            this.functions = functions;
+        }
+    }
+
+    /**
+     * Finds the strongly connected components of the documented classes, every component after
+     * the components its classes inherit from.
+     */
+    private class Components {
+        final Map<String, Integer> index = new HashMap<>();
+        final Map<String, Integer> lowLink = new HashMap<>();
+        final Deque<String> stack = new ArrayDeque<>();
+        final Set<String> onStack = new HashSet<>();
+        final List<List<String>> found = new ArrayList<>();
+
+        void visit(String className) {
+            index.put(className, index.size());
+            lowLink.put(className, index.get(className));
+            stack.push(className);
+            onStack.add(className);
+
+            for (String parent : classesByName.get(className).parent) {
+                if (!classesByName.containsKey(parent)) {
+                    continue;
+                }
+                if (!index.containsKey(parent)) {
+                    visit(parent);
+                    lowLink.put(className, Math.min(lowLink.get(className), lowLink.get(parent)));
+                } else if (onStack.contains(parent)) {
+                    lowLink.put(className, Math.min(lowLink.get(className), index.get(parent)));
+                }
+            }
+
+            if (lowLink.get(className).equals(index.get(className))) {
+                List<String> component = new ArrayList<>();
+                String member;
+                do {
+                    member = stack.pop();
+                    onStack.remove(member);
+                    component.add(member);
+                } while (!member.equals(className));
+                found.add(component);
+            }
+        }
+    }
+
+    private final Map<String, Class> classesByName = new LinkedHashMap<>();
+    private final Map<String, List<String>> linearizations = new HashMap<>();
+    private final Map<String, List<InheritedMembers>> inheritedMembers = new HashMap<>();
+    private final Map<String, Map<String, String>> overrides = new HashMap<>();
+    private final Set<String> cycles = new LinkedHashSet<>();
+
+    /**
+     * Resolves the inherited members of all classes of the documentation.
+     * @param documentation the documentation
+     */
+    public Inheritance(Documentation documentation) {
+        for (Class clazz : documentation.classes) {
+            classesByName.putIfAbsent(clazz.name, clazz);
+        }
+
+        Components components = new Components();
+        for (String className : classesByName.keySet()) {
+            if (!components.index.containsKey(className)) {
+                components.visit(className);
+            }
+        }
+        Map<String, Set<String>> ignoredEdges = new HashMap<>();
+        for (List<String> component : components.found) {
+            breakCycles(Collections.min(component), new HashSet<>(component), new LinkedHashSet<>(), new HashSet<>(), ignoredEdges);
+        }
+
+        for (Class clazz : classesByName.values()) {
+            linearize(clazz.name, ignoredEdges);
+        }
+        for (Class clazz : classesByName.values()) {
+            resolveMembers(clazz);
+        }
+    }
+
+    /**
+     * Walks the classes of one component depth first and ignores the edges leading back to a
+     * class on the current path, which leaves the component without cycles.
+     */
+    private void breakCycles(String className, Set<String> component, Set<String> path, Set<String> done,
+                             Map<String, Set<String>> ignoredEdges) {
+        path.add(className);
+        for (String parent : classesByName.get(className).parent) {
+            if (!component.contains(parent)) {
+                continue;
+            }
+            if (path.contains(parent)) {
+                ignoredEdges.computeIfAbsent(className, name -> new HashSet<>()).add(parent);
+                cycles.add(describeCycle(new ArrayList<>(path), parent));
+            } else if (!done.contains(parent)) {
+                breakCycles(parent, component, path, done, ignoredEdges);
+            }
+        }
+        path.remove(className);
+        done.add(className);
+    }
+
+    private List<String> linearize(String className, Map<String, Set<String>> ignoredEdges) {
+        List<String> known = linearizations.get(className);
+        if (known != null) {
+            return known;
+        }
+        Class clazz = classesByName.get(className);
+        if (clazz == null) {
+            return Collections.emptyList();
+        }
+
+        Set<String> ignored = ignoredEdges.getOrDefault(className, Collections.emptySet());
+        LinkedHashSet<String> ancestors = new LinkedHashSet<>();
+        for (String parent : clazz.parent) {
+            if (ignored.contains(parent)) {
+                continue;
+            }
+            ancestors.add(parent);
+            ancestors.addAll(linearize(parent, ignoredEdges));
+        }
+
+        List<String> linearization = List.copyOf(ancestors);
+        linearizations.put(className, linearization);
+        return linearization;
+    }
+
+    /**
+     * Describes a cycle starting at its smallest class name.
+     */
+    private static String describeCycle(List<String> path, String parent) {
+        List<String> cycle = new ArrayList<>(path.subList(path.indexOf(parent), path.size()));
+        Collections.rotate(cycle, -cycle.indexOf(Collections.min(cycle)));
+        cycle.add(cycle.get(0));
+        return String.join(" -> ", cycle);
+    }
+
+    private void resolveMembers(Class clazz) {
+        Set<String> fieldNames = new HashSet<>();
+        for (Field field : clazz.fields) {
+            fieldNames.add(field.name);
+        }
+        Set<String> ownFunctionNames = new HashSet<>();
+        for (Function function : clazz.functions) {
+            ownFunctionNames.add(function.name);
+        }
+        Set<String> functionNames = new HashSet<>(ownFunctionNames);
+        Map<String, String> overridden = new HashMap<>();
+
+        List<InheritedMembers> inherited = new ArrayList<>();
+        for (String ancestorName : linearizations.get(clazz.name)) {
+            Class ancestor = classesByName.get(ancestorName);
+            if (ancestor == null) {
+                continue;
+            }
+            List<Field> fields = new ArrayList<>();
+            for (Field field : ancestor.fields) {
+                if (fieldNames.add(field.name)) {
+                    fields.add(field);
+                }
+            }
+            List<Function> functions = new ArrayList<>();
+            for (Function function : ancestor.functions) {
+                if (ownFunctionNames.contains(function.name)) {
+                    overridden.putIfAbsent(function.name, ancestorName);
+                } else if (functionNames.add(function.name)) {
+                    functions.add(function);
+                }
+            }
+            if (!fields.isEmpty() || !functions.isEmpty()) {
+                inherited.add(new InheritedMembers(ancestorName, fields, functions));
+            }
+        }
+
+        inheritedMembers.put(clazz.name, inherited);
+        overrides.put(clazz.name, overridden);
+    }
+
+    /**
+     * Returns the parent edges that were ignored because they close a cycle, e.g. {@code A -> B -> A}.
+     * @return the cycles in the order they were found
+     */
+    public List<String> getCycles() {
+        return List.copyOf(cycles);
+    }
+
+    /**
+     * Returns the linearized ancestors of a class, nearest first. Undocumented ancestors are
+     * included by name.
+     * @param className the name of the class
+     * @return the ancestors, empty for unknown classes
+     */
+    public List<String> ancestors(String className) {
+        return linearizations.getOrDefault(className, Collections.emptyList());
+    }
+
+    /**
+     * Returns the members a class inherits, grouped by the ancestor declaring them in linearization order.
+     * @param className the name of the class
+     * @return the inherited members, empty for unknown classes
+     */
+    public List<InheritedMembers> inheritedMembers(String className) {
+        readAncestors(className);
+        return inheritedMembers.getOrDefault(className, Collections.emptyList());
+    }
+
+    /**
+     * Returns the nearest ancestor whose method is overridden by the given method of the class.
+     * @param className the name of the class
+     * @param methodName the name of the method declared by the class
+     * @return the ancestor or null if the method does not override anything
+     */
+    public String overriddenAncestor(String className, String methodName) {
+        readAncestors(className);
+        Map<String, String> overridden = overrides.get(className);
+        return overridden != null ? overridden.get(methodName) : null;
+    }
+
+    /**
+     * The inherited members depend on the content of every ancestor.
+     */
+    private void readAncestors(String className) {
+        for (String ancestor : ancestors(className)) {
+            Dependencies.readClass(ancestor);
+        }
+    }
+}
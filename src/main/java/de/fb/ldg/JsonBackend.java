@@ -0,0 +1,230 @@
+package de.fb.ldg;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Exports the documentation model as JSON, streamed element by element so that no copy of the
+ * model is built in memory. The format is described by {@code documentation.schema.json} next to
+ * this class:
+ * <pre>
+ * {"schema": "luadocgen/1",
+ *  "classes": [{"name", "parents": [], "fields": [{"name", "type", "visibility", "description"}],
+ *               "functions": [...], "see": [...]}],
+ *  "functions": [{"name", "description", "static", "nodiscard",
+ *                 "parameters": [{"name", "type", "description"}],
+ *                 "returns": {"type", "description"} | null,
+ *                 "examples": [], "see": [{"name", "kind", "description"}]}],
+ *  "variables": [{"name", "type", "description", "local"}]}
+ * </pre>
+ * The NDJSON variant writes one symbol per line instead: classes with their fields, methods with
+ * the name of their class, global functions and variables, each with a {@code kind} member.
+ *
+ * <p>The output is a .json/.ndjson file, {@code -} for standard output, or a directory receiving
+ * documentation.json or documentation.ndjson.</p>
+ */
+public class JsonBackend implements OutputBackend {
+
+    /**
+     * Identifies the format, increased on incompatible changes.
+     */
+    public static final String SCHEMA = "luadocgen/1";
+
+    private final boolean lines;
+
+    /**
+     * Creates the backend.
+     * @param lines true for newline delimited JSON with one symbol per line
+     */
+    public JsonBackend(boolean lines) {
+        this.lines = lines;
+    }
+
+    @Override
+    public String getName() {
+        return lines ? "ndjson" : "json";
+    }
+
+    @Override
+    public String defaultOutput(String output) {
+        return output + "." + getName();
+    }
+
+    @Override
+    public void generate(Documentation documentation, String output, DocOptions options) {
+        try {
+            if (output.equals("-")) {
+                // The log goes to stderr when the data is written to stdout
+                Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+                write(documentation, out);
+                out.flush();
+                return;
+            }
+
+            Path file = Paths.get(output);
+            if (!output.endsWith(".json") && !output.endsWith(".ndjson")) {
+                Files.createDirectories(file);
+                file = file.resolve("documentation." + getName());
+            } else if (file.getParent() != null) {
+                Files.createDirectories(file.getParent());
+            }
+            try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                write(documentation, out);
+            }
+            options.log.println(getName().toUpperCase(Locale.ROOT) + " documentation successfully generated in: " + file.toAbsolutePath());
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing " + getName().toUpperCase(Locale.ROOT) + " documentation", e);
+        }
+    }
+
+    /**
+     * Streams the documentation to the writer.
+     * @param documentation the documentation
+     * @param out the target
+     * @throws IOException if writing fails
+     */
+    public void write(Documentation documentation, Writer out) throws IOException {
+        JsonWriter json = new JsonWriter(out);
+        if (lines) {
+            writeLines(documentation, json);
+            return;
+        }
+
+        json.beginObject().property("schema", SCHEMA);
+        json.name("classes").beginArray();
+        for (Class clazz : documentation.classes) {
+            json.beginObject();
+            writeClassMembers(clazz, json);
+            json.name("functions").beginArray();
+            for (Function function : clazz.functions) {
+                json.beginObject();
+                writeFunctionMembers(function, json);
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("functions").beginArray();
+        for (Function function : documentation.functions) {
+            json.beginObject();
+            writeFunctionMembers(function, json);
+            json.endObject();
+        }
+        json.endArray();
+
+        json.name("variables").beginArray();
+        for (Variable variable : documentation.variables) {
+            json.beginObject();
+            writeVariableMembers(variable, json);
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject().newline();
+    }
+
+    private static void writeLines(Documentation documentation, JsonWriter json) throws IOException {
+        for (Class clazz : documentation.classes) {
+            json.beginObject().property("kind", "class");
+            writeClassMembers(clazz, json);
+            json.endObject().newline();
+            for (Function function : clazz.functions) {
+                json.beginObject().property("kind", "method").property("class", clazz.name);
+                writeFunctionMembers(function, json);
+                json.endObject().newline();
+            }
+        }
+        for (Function function : documentation.functions) {
+            json.beginObject().property("kind", "function");
+            writeFunctionMembers(function, json);
+            json.endObject().newline();
+        }
+        for (Variable variable : documentation.variables) {
+            json.beginObject().property("kind", "variable");
+            writeVariableMembers(variable, json);
+            json.endObject().newline();
+        }
+    }
+
+    /**
+     * Writes the members of a class except its functions.
+     */
+    private static void writeClassMembers(Class clazz, JsonWriter json) throws IOException {
+        json.property("name", clazz.name);
+        json.name("parents").beginArray();
+        for (String parent : clazz.parent) {
+            json.value(parent);
+        }
+        json.endArray();
+        json.name("fields").beginArray();
+        for (Field field : clazz.fields) {
+            json.beginObject()
+                .property("name", field.name)
+                .property("type", field.type)
+                .property("visibility", field.visibility)
+                .property("description", field.description)
+                .endObject();
+        }
+        json.endArray();
+        writeSeeReferences(clazz.seeReferences, json);
+    }
+
+    private static void writeFunctionMembers(Function function, JsonWriter json) throws IOException {
+        json.property("name", function.name)
+            .property("description", function.description)
+            .property("static", function.isStatic)
+            .property("nodiscard", function.nodiscard);
+        json.name("parameters").beginArray();
+        for (Function.Parameter param : function.parameters) {
+            json.beginObject()
+                .property("name", param.name)
+                .property("type", param.type)
+                .property("description", param.description)
+                .endObject();
+        }
+        json.endArray();
+        json.name("returns");
+        if (function.returnType != null && !function.returnType.isEmpty()) {
+            json.beginObject()
+                .property("type", function.returnType)
+                .property("description", function.returnDescription)
+                .endObject();
+        } else {
+            json.nullValue();
+        }
+        json.name("examples").beginArray();
+        for (String example : function.examples) {
+            json.value(example);
+        }
+        json.endArray();
+        writeSeeReferences(function.seeReferences, json);
+    }
+
+    private static void writeVariableMembers(Variable variable, JsonWriter json) throws IOException {
+        json.property("name", variable.name)
+            .property("type", variable.type)
+            .property("description", variable.description)
+            .property("local", variable.isLocal);
+    }
+
+    private static void writeSeeReferences(List<SeeReference> seeReferences, JsonWriter json) throws IOException {
+        json.name("see").beginArray();
+        for (SeeReference see : seeReferences) {
+            json.beginObject()
+                .property("name", see.referenceName)
+                .property("kind", see.type.name().toLowerCase(Locale.ROOT))
+                .property("description", see.description)
+                .endObject();
+        }
+        json.endArray();
+    }
+}
@@ -0,0 +1,193 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes {@code ---@meta} definition files for the Lua language server (LuaLS): classes with
+ * their fields, function signatures with parameters and return values and global variables with
+ * their type, but no code. The editor can load these small stubs instead of indexing the full
+ * sources of a dependency.
+ *
+ * <p>The stubs are sharded by the first segment of the class names, so {@code Config},
+ * {@code Config.General} and their methods end up in Config.lua, global functions and variables
+ * in globals.lua. The annotations are written the way {@link DocGenerator} reads them, parsing the
+ * stubs again yields the same classes, functions and variables. Their order may differ, since the
+ * shards are read back in file name order, and only the first parent of a class is read back.</p>
+ */
+public class LuaStubBackend implements OutputBackend {
+
+    private static final String GLOBALS_FILE = "globals";
+
+    @Override
+    public String getName() {
+        return "luals";
+    }
+
+    @Override
+    public void generate(Documentation documentation, String output, DocOptions options) {
+        // Namespace -> classes, in documentation order
+        Map<String, StringBuilder> shards = new LinkedHashMap<>();
+        for (Class clazz : documentation.classes) {
+            int dot = clazz.name.indexOf('.');
+            String namespace = dot < 0 ? clazz.name : clazz.name.substring(0, dot);
+            appendClass(shards.computeIfAbsent(namespace, k -> new StringBuilder("---@meta\n\n")), clazz);
+        }
+
+        try (PageOutput out = PageOutput.open(Paths.get(output), options.html)) {
+            Set<String> takenFiles = new HashSet<>(Set.of(GLOBALS_FILE));
+            for (Map.Entry<String, StringBuilder> shard : shards.entrySet()) {
+                String file = PageIds.toFileName(shard.getKey());
+                for (int i = 2; !takenFiles.add(file.toLowerCase(Locale.ROOT)); i++) {
+                    file = PageIds.toFileName(shard.getKey()) + "_" + i;
+                }
+                out.write(file + ".lua", shard.getValue().toString());
+            }
+            if (!documentation.functions.isEmpty() || !documentation.variables.isEmpty()) {
+                out.write(GLOBALS_FILE + ".lua", globals(documentation));
+            }
+            out.finish();
+            options.log.println("LuaLS definitions successfully generated in: " + out.describe());
+        } catch (IOException e) {
+            throw new RuntimeException("Error generating LuaLS definitions", e);
+        }
+    }
+
+    private static void appendClass(StringBuilder lua, Class clazz) {
+        lua.append("---@class ").append(clazz.name);
+        if (!clazz.parent.isEmpty()) {
+            lua.append(" : ").append(String.join(", ", clazz.parent));
+        }
+        lua.append('\n');
+        for (Field field : clazz.fields) {
+            lua.append("---@field ").append(field.visibility.isEmpty() ? "public" : field.visibility)
+                .append(' ').append(field.name).append(' ').append(typeOrAny(field.type));
+            appendDescription(lua, field.description);
+        }
+        appendSeeReferences(lua, clazz.seeReferences);
+        // The block needs a code line to be read back; generic names like List<T> are no Lua
+        // identifiers and get a local table like in the sources
+        if (isIdentifier(clazz.name)) {
+            lua.append(clazz.name).append(" = {}\n\n");
+        } else {
+            int end = 0;
+            while (end < clazz.name.length() && (Character.isLetterOrDigit(clazz.name.charAt(end)) || clazz.name.charAt(end) == '_')) {
+                end++;
+            }
+            lua.append("local ").append(end > 0 ? clazz.name.substring(0, end) : "_").append(" = {}\n\n");
+        }
+
+        for (Function function : clazz.functions) {
+            appendFunctionDoc(lua, function);
+            if (function.isStatic && clazz.name.indexOf('.') >= 0) {
+                // The parser reads methods of nested tables only from assignments
+                lua.append(clazz.name).append('.').append(function.name).append(" = function(");
+                appendParameterNames(lua, function.parameters);
+                lua.append(") end\n\n");
+            } else {
+                lua.append("function ").append(clazz.name).append(function.isStatic ? '.' : ':').append(function.name).append('(');
+                appendParameterNames(lua, function.parameters);
+                lua.append(") end\n\n");
+            }
+        }
+    }
+
+    private static String globals(Documentation documentation) {
+        StringBuilder lua = new StringBuilder("---@meta\n\n");
+        for (Function function : documentation.functions) {
+            appendFunctionDoc(lua, function);
+            lua.append("function ").append(function.name).append('(');
+            appendParameterNames(lua, function.parameters);
+            lua.append(") end\n\n");
+        }
+        for (Variable variable : documentation.variables) {
+            if (variable.isLocal) {
+                continue;
+            }
+            lua.append("---@type ").append(typeOrAny(variable.type));
+            appendDescription(lua, variable.description);
+            lua.append(variable.name).append(" = nil\n\n");
+        }
+        return lua.toString();
+    }
+
+    private static void appendFunctionDoc(StringBuilder lua, Function function) {
+        // A function needs at least one doc line to be documented
+        lua.append("---").append(singleLine(function.description)).append('\n');
+        if (!function.examples.isEmpty()) {
+            lua.append("---```lua\n");
+            for (String example : function.examples) {
+                lua.append("---").append(singleLine(example)).append('\n');
+            }
+            lua.append("---```\n");
+        }
+        for (Function.Parameter param : function.parameters) {
+            lua.append("---@param ").append(param.name).append(' ').append(typeOrAny(param.type));
+            appendDescription(lua, param.description);
+        }
+        if (function.returnType != null && !function.returnType.isEmpty()) {
+            lua.append("---@return ").append(function.returnType);
+            appendDescription(lua, function.returnDescription);
+        }
+        if (function.nodiscard) {
+            lua.append("---@nodiscard\n");
+        }
+        appendSeeReferences(lua, function.seeReferences);
+    }
+
+    private static void appendSeeReferences(StringBuilder lua, List<SeeReference> seeReferences) {
+        for (SeeReference see : seeReferences) {
+            lua.append("---@see ").append(see.referenceName);
+            appendDescription(lua, see.description);
+        }
+    }
+
+    private static void appendParameterNames(StringBuilder lua, List<Function.Parameter> parameters) {
+        for (int i = 0; i < parameters.size(); i++) {
+            if (i > 0) lua.append(", ");
+            lua.append(parameters.get(i).name);
+        }
+    }
+
+    /**
+     * Appends " description" if there is one, and ends the line.
+     */
+    private static void appendDescription(StringBuilder lua, String description) {
+        if (description != null && !description.isEmpty()) {
+            lua.append(' ').append(singleLine(description));
+        }
+        lua.append('\n');
+    }
+
+    private static String typeOrAny(String type) {
+        return type == null || type.isEmpty() ? "any" : type;
+    }
+
+    private static String singleLine(String text) {
+        return text == null ? "" : text.replace('\r', ' ').replace('\n', ' ');
+    }
+
+    /**
+     * Checks for a name like {@code Config.General} that can be assigned to in Lua.
+     */
+    private static boolean isIdentifier(String name) {
+        boolean segmentStart = true;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.' && !segmentStart) {
+                segmentStart = true;
+            } else if (Character.isLetter(c) || c == '_' || (!segmentStart && Character.isDigit(c))) {
+                segmentStart = false;
+            } else {
+                return false;
+            }
+        }
+        return !segmentStart;
+    }
+}
@@ -1,77 +1,180 @@
 package de.fb.ldg;
 
+import jdk.jfr.Recording;
+
 import java.io.IOException;
+import java.io.PrintStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
 import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.stream.Stream;
+import java.util.Map;
 
 public class Main {
     public static void main(String[] args) {
         try {
             if (args.length == 0) {
-                System.err.println("Usage: java de.fb.ldg.Main <lua-file1> [lua-file2] ... [lua-fileN]");
-                System.err.println("   OR: java de.fb.ldg.Main <directory>");
+                System.err.println("Usage: java de.fb.ldg.Main [options] <lua-file1> [lua-file2] ... [lua-fileN]");
+                System.err.println("   OR: java de.fb.ldg.Main [options] <directory>");
+                System.err.println("   OR: java de.fb.ldg.Main [options] <bundle.zip|bundle.jar> ...");
+                System.err.println("   OR: java de.fb.ldg.Main serve [--port <port>] [--cache-size <MB>] [--page-size <n>] [--namespace-page-size <n>] [--theme <dir>]");
+                System.err.println("                [--merge-policy <p>] [--include <glob>] [--exclude <glob>] [--jfr <file>] <lua-file|directory>...");
+                System.err.println("   OR: java de.fb.ldg.Main daemon [--socket <path>] [--idle-timeout <seconds>]");
+                System.err.println("   OR: java de.fb.ldg.Main client [--socket <path>] <generate|check|query|status|stop> [args]...");
+                System.err.println("Options:");
+                System.err.println("  --output <dir>     Output directory, or a .zip/.jar archive to write into (default: docs)");
+                System.err.println("  --format <f[=out]> Output formats, comma separated or repeated: html (default), markdown,");
+                System.err.println("                     json, ndjson, luals (LuaLS ---@meta stubs); with several formats, html");
+                System.err.println("                     writes to --output, json and ndjson to <output>.<format> and others");
+                System.err.println("                     to <output>-<format>; - is stdout");
+                System.err.println("  --page-size <n>    Split globals and classes with more than n elements into pages (default: "
+                    + HtmlOptions.DEFAULT_PAGE_SIZE + ")");
+                System.err.println("  --namespace-page-size <n>");
+                System.err.println("                     List namespaces with more than n classes on their own page (default: "
+                    + HtmlOptions.DEFAULT_NAMESPACE_PAGE_SIZE + ", 0 = never)");
+                System.err.println("  --threads <n>      Number of render workers (default: number of processors)");
+                System.err.println("  --parse-threads <n> Number of parse workers (default: number of processors)");
+                System.err.println("  --read-queue <n>   Files read ahead of the parse workers (default: "
+                    + ParsePipeline.DEFAULT_QUEUE_DEPTH + ")");
+                System.err.println("  --merge-policy <p> Duplicate functions and variables: keep-first, keep-last,");
+                System.err.println("                     keep-all-overloads (default) or error");
+                System.err.println("  --gzip             Also write a precompressed .gz file next to every page");
+                System.err.println("  --theme <dir>      Directory with templates replacing the built-in ones");
+                System.err.println("  --full             Render every page, even if its inputs did not change since the last run");
+                System.err.println("  --zip-level <0-9>  Compression level when writing an archive");
+                System.err.println("  --include <glob>   Only document matching files (repeatable)");
+                System.err.println("  --exclude <glob>   Skip matching files and directories (repeatable), see also "
+                    + SourceDiscovery.IGNORE_FILE);
+                System.err.println("  --jfr <file>       Record parse, merge, render and cache events with Flight Recorder");
                 System.err.println("Examples:");
                 System.err.println("  java de.fb.ldg.Main test.lua example.lua");
                 System.err.println("  java de.fb.ldg.Main src/lua/");
+                System.err.println("  java de.fb.ldg.Main --format html,markdown=wiki src/lua/");
+                System.err.println("  java de.fb.ldg.Main --format ndjson=- src/lua/ | jq .name");
+                System.err.println("  java de.fb.ldg.Main serve --port 8080 src/lua/");
+                System.err.println("  java de.fb.ldg.Main client generate --output docs src/lua/");
                 System.exit(1);
             }
 
-            List<String> luaFiles = new ArrayList<>();
+            if (args[0].equals("serve")) {
+                serve(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+            if (args[0].equals("daemon")) {
+                daemon(Arrays.copyOfRange(args, 1, args.length));
+                return;
+            }
+            if (args[0].equals("client")) {
+                System.exit(client(Arrays.copyOfRange(args, 1, args.length)));
+            }
 
-            // Check if we have a single argument that's a directory
-            if (args.length == 1) {
-                Path path = Paths.get(args[0]);
-                if (Files.isDirectory(path)) {
-                    System.out.println("Scanning directory: " + path.toAbsolutePath());
-                    luaFiles.addAll(findLuaFiles(path));
-                    if (luaFiles.isEmpty()) {
-                        System.err.println("No .lua files found in directory: " + args[0]);
-                        System.exit(1);
-                    }
-                    System.out.println("Found " + luaFiles.size() + " Lua file(s):");
-                    for (String file : luaFiles) {
-                        System.out.println("  - " + file);
+            DocOptions options = new DocOptions();
+            HtmlOptions htmlOptions = options.html;
+            Path jfrFile = null;
+            List<String> inputs = new ArrayList<>();
+            for (int i = 0; i < args.length; i++) {
+                if (args[i].equals("--output") && i + 1 < args.length) {
+                    options.output = args[++i];
+                } else if (args[i].equals("--format") && i + 1 < args.length) {
+                    for (String format : args[++i].split(",")) {
+                        int separator = format.indexOf('=');
+                        if (separator < 0) {
+                            options.formats.put(format.trim(), null);
+                        } else {
+                            options.formats.put(format.substring(0, separator).trim(), format.substring(separator + 1));
+                        }
                     }
+                } else if (args[i].equals("--page-size") && i + 1 < args.length) {
+                    htmlOptions.pageSize = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--namespace-page-size") && i + 1 < args.length) {
+                    htmlOptions.namespacePageSize = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--threads") && i + 1 < args.length) {
+                    htmlOptions.threads = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--parse-threads") && i + 1 < args.length) {
+                    options.parseThreads = Math.max(1, Integer.parseInt(args[++i]));
+                } else if (args[i].equals("--read-queue") && i + 1 < args.length) {
+                    options.readQueue = Math.max(1, Integer.parseInt(args[++i]));
+                } else if (args[i].equals("--merge-policy") && i + 1 < args.length) {
+                    options.mergePolicy = MergePolicy.fromName(args[++i]);
+                } else if (args[i].equals("--gzip")) {
+                    htmlOptions.gzip = true;
+                } else if (args[i].equals("--theme") && i + 1 < args.length) {
+                    htmlOptions.theme = Theme.load(Paths.get(args[++i]));
+                } else if (args[i].equals("--full")) {
+                    htmlOptions.incremental = false;
+                } else if (args[i].equals("--zip-level") && i + 1 < args.length) {
+                    htmlOptions.compressionLevel = Integer.parseInt(args[++i]);
+                } else if (args[i].equals("--include") && i + 1 < args.length) {
+                    options.includes.add(args[++i]);
+                } else if (args[i].equals("--exclude") && i + 1 < args.length) {
+                    options.excludes.add(args[++i]);
+                } else if (args[i].equals("--jfr") && i + 1 < args.length) {
+                    jfrFile = Paths.get(args[++i]);
                 } else {
-                    // Single file
-                    luaFiles.add(args[0]);
-                }
-            } else {
-                // Multiple files specified
-                for (String arg : args) {
-                    luaFiles.add(arg);
+                    inputs.add(args[i]);
                 }
             }
 
-            // Validate all files exist and are readable
-            for (String filePath : luaFiles) {
-                Path path = Paths.get(filePath);
-                if (!Files.exists(path)) {
-                    System.err.println("Error: File does not exist: " + filePath);
+            // Unknown formats are reported before anything is parsed
+            Map<OutputBackend, String> outputs = OutputBackend.resolve(options.formats, options.output);
+            if (outputs.containsValue("-")) {
+                // Standard output belongs to the exported data, log to stderr instead
+                options.log = System.err;
+            }
+            PrintStream log = options.log;
+
+            // Also written if the run fails
+            Recording recording = jfrFile != null ? Tracing.startRecording(jfrFile) : null;
+
+            // A single run, nothing to cache for later builds
+            DocEngine engine = new DocEngine(null);
+
+            // Discover files, reading the attributes of every file exactly once
+            List<SourceDiscovery.SourceFile> sources;
+            try {
+                sources = engine.discover(inputs, options);
+            } catch (NoSuchFileException e) {
+                System.err.println("Error: File does not exist: " + e.getFile());
+                System.exit(1);
+                return;
+            }
+
+            // Check if we have a single argument that's a directory
+            if (inputs.size() == 1 && Files.isDirectory(Paths.get(inputs.get(0)))) {
+                log.println("Scanning directory: " + Paths.get(inputs.get(0)).toAbsolutePath());
+                if (sources.isEmpty()) {
+                    System.err.println("No .lua files found in directory: " + inputs.get(0));
                     System.exit(1);
                 }
-                if (!Files.isReadable(path)) {
-                    System.err.println("Error: Cannot read file: " + filePath);
-                    System.exit(1);
+                log.println("Found " + sources.size() + " Lua file(s):");
+                for (SourceDiscovery.SourceFile source : sources) {
+                    log.println("  - " + source.path);
                 }
             }
 
             // Generate documentation from files
-            Documentation documentation = DocGenerator.generateFromFiles(luaFiles.toArray(new String[0]));
+            Documentation documentation = engine.parse(sources, options);
 
             // Console output (optional)
-            System.out.println("\n=== CONSOLE OUTPUT ===");
-            System.out.println(documentation);
+            log.println("\n=== CONSOLE OUTPUT ===");
+            log.println(documentation);
 
-            // Generate HTML documentation
-            System.out.println("\n=== HTML GENERATION ===");
-            HtmlGenerator.generateHtml(documentation, "docs");
+            // Write every requested format from the same parse
+            log.println("\n=== OUTPUT GENERATION ===");
+            engine.generate(documentation, options);
 
-            System.out.println("\nProcessed " + luaFiles.size() + " file(s) successfully!");
+            log.println("\nProcessed " + sources.size() + " file(s) successfully!");
+
+            if (recording != null) {
+                recording.stop();
+                recording.close();
+                log.println("Flight recording written to: " + jfrFile.toAbsolutePath());
+            }
 
         } catch (Exception e) {
             System.err.println("Error generating documentation: " + e.getMessage());
@@ -81,23 +184,96 @@ public class Main {
     }
 
     /**
-     * Recursively finds all .lua files in the given directory and subdirectories.
-     * @param directory The directory to search
-     * @return List of absolute file paths
-     * @throws IOException if there's an error reading the directory
+     * Starts the embedded documentation server and blocks until the JVM is stopped.
+     * @param args the arguments following the "serve" command
+     */
+    private static void serve(String[] args) throws IOException {
+        int port = 8080;
+        long cacheSize = 64;
+        DocOptions options = new DocOptions();
+        HtmlOptions htmlOptions = options.html;
+        List<String> inputs = new ArrayList<>();
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port") && i + 1 < args.length) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--cache-size") && i + 1 < args.length) {
+                cacheSize = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--page-size") && i + 1 < args.length) {
+                htmlOptions.pageSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--namespace-page-size") && i + 1 < args.length) {
+                htmlOptions.namespacePageSize = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--theme") && i + 1 < args.length) {
+                htmlOptions.theme = Theme.load(Paths.get(args[++i]));
+            } else if (args[i].equals("--merge-policy") && i + 1 < args.length) {
+                options.mergePolicy = MergePolicy.fromName(args[++i]);
+            } else if (args[i].equals("--include") && i + 1 < args.length) {
+                options.includes.add(args[++i]);
+            } else if (args[i].equals("--exclude") && i + 1 < args.length) {
+                options.excludes.add(args[++i]);
+            } else if (args[i].equals("--jfr") && i + 1 < args.length) {
+                // Runs until the server stops, written on exit
+                Tracing.startRecording(Paths.get(args[++i]));
+            } else {
+                inputs.add(args[i]);
+            }
+        }
+
+        if (inputs.isEmpty()) {
+            System.err.println("Error: No Lua files or directories to serve");
+            System.exit(1);
+        }
+
+        DocServer server = new DocServer(inputs, options, cacheSize * 1024 * 1024);
+        server.start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        Runtime.getRuntime().addShutdownHook(new Thread(server::stop));
+    }
+
+    /**
+     * Runs the documentation daemon until it is stopped or idle for too long.
+     * @param args the arguments following the "daemon" command
+     */
+    private static void daemon(String[] args) throws IOException {
+        Path socket = DocDaemon.defaultSocket();
+        long idleTimeout = 30 * 60;
+
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--socket") && i + 1 < args.length) {
+                socket = Paths.get(args[++i]);
+            } else if (args[i].equals("--idle-timeout") && i + 1 < args.length) {
+                idleTimeout = Long.parseLong(args[++i]);
+            } else {
+                System.err.println("Error: Unknown daemon option: " + args[i]);
+                System.exit(1);
+            }
+        }
+
+        new DocDaemon(socket, idleTimeout * 1000).run();
+    }
+
+    /**
+     * Sends a request to a running daemon.
+     * @param args the arguments following the "client" command
+     * @return the exit code reported by the daemon
      */
-    private static List<String> findLuaFiles(Path directory) throws IOException {
-        List<String> luaFiles = new ArrayList<>();
-
-        try (Stream<Path> paths = Files.walk(directory)) {
-            paths.filter(Files::isRegularFile)
-                 .filter(path -> path.toString().toLowerCase().endsWith(".lua"))
-                 .map(Path::toAbsolutePath)
-                 .map(Path::toString)
-                 .sorted()
-                 .forEach(luaFiles::add);
+    private static int client(String[] args) {
+        Path socket = DocDaemon.defaultSocket();
+        int i = 0;
+        if (args.length >= 2 && args[0].equals("--socket")) {
+            socket = Paths.get(args[1]);
+            i = 2;
+        }
+        if (i >= args.length) {
+            System.err.println("Error: No daemon command given");
+            return 2;
         }
 
-        return luaFiles;
+        try {
+            return DocDaemon.request(socket, args[i], Arrays.asList(args).subList(i + 1, args.length));
+        } catch (IOException e) {
+            System.err.println("Error: Cannot reach daemon on " + socket + " (" + e.getMessage() + ")");
+            System.err.println("Start it with: java de.fb.ldg.Main daemon");
+            return 1;
+        }
     }
 }
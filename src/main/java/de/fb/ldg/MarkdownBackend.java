@@ -0,0 +1,318 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Writes the documentation as Markdown files for wikis: index.md, one file per class and
+ * globals.md. File names and anchors are the same as the ones of the HTML pages.
+ */
+public class MarkdownBackend implements OutputBackend {
+
+    @Override
+    public String getName() {
+        return "markdown";
+    }
+
+    @Override
+    public void generate(Documentation documentation, String output, DocOptions options) {
+        PageIds ids = new PageIds(documentation);
+        Writer writer = new Writer(ids, documentation);
+
+        try (PageOutput out = PageOutput.open(Paths.get(output), options.html)) {
+            out.write("index.md", writer.index(documentation));
+            for (Class clazz : writer.classes.values()) {
+                out.write(ids.classFile(clazz.name) + ".md", writer.classFile(clazz));
+            }
+            if (!documentation.functions.isEmpty() || !documentation.variables.isEmpty()) {
+                out.write("globals.md", writer.globals(documentation));
+            }
+            out.finish();
+            options.log.println("Markdown documentation successfully generated in: " + out.describe());
+        } catch (IOException e) {
+            throw new RuntimeException("Error generating Markdown documentation", e);
+        }
+    }
+
+    /**
+     * Renders the files, links are resolved with the ids of the documentation.
+     */
+    private static class Writer {
+        private final PageIds ids;
+        private final Map<String, Class> classes = new LinkedHashMap<>();
+        private final Set<String> globalFunctions = new HashSet<>();
+
+        Writer(PageIds ids, Documentation documentation) {
+            this.ids = ids;
+            for (Class clazz : documentation.classes) {
+                classes.putIfAbsent(clazz.name, clazz);
+            }
+            for (Function function : documentation.functions) {
+                globalFunctions.add(function.name);
+            }
+        }
+
+        String index(Documentation documentation) {
+            StringBuilder md = new StringBuilder("# Lua Documentation\n\n");
+            if (!documentation.classes.isEmpty()) {
+                md.append("## Classes\n\n");
+                for (Class clazz : documentation.classes) {
+                    if (classes.get(clazz.name) == clazz) {
+                        md.append("- ");
+                        appendClassLink(md, clazz.name);
+                        md.append('\n');
+                    }
+                }
+                md.append('\n');
+            }
+            if (!documentation.functions.isEmpty() || !documentation.variables.isEmpty()) {
+                md.append("## Global Elements\n\n- [Global Functions and Variables](globals.md)\n");
+            }
+            return md.toString();
+        }
+
+        String classFile(Class clazz) {
+            StringBuilder md = new StringBuilder("# Class ");
+            appendEscaped(md, clazz.name);
+            md.append("\n\n");
+
+            if (!clazz.parent.isEmpty()) {
+                md.append("Extends: ");
+                for (int i = 0; i < clazz.parent.size(); i++) {
+                    if (i > 0) md.append(", ");
+                    appendClassLink(md, clazz.parent.get(i));
+                }
+                md.append("\n\n");
+            }
+
+            if (!clazz.fields.isEmpty()) {
+                md.append("## Fields\n\n| Field | Type | Visibility | Description |\n| --- | --- | --- | --- |\n");
+                for (Field field : clazz.fields) {
+                    md.append("| ");
+                    appendEscaped(md, field.name);
+                    md.append(" | ");
+                    appendType(md, field.type);
+                    md.append(" | ");
+                    appendCell(md, field.visibility);
+                    md.append(" | ");
+                    appendCell(md, field.description);
+                    md.append(" |\n");
+                }
+                md.append('\n');
+            }
+
+            if (!clazz.functions.isEmpty()) {
+                md.append("## Methods\n\n");
+                for (Function function : clazz.functions) {
+                    appendFunction(md, function, true);
+                }
+            }
+
+            appendSeeReferences(md, clazz.seeReferences);
+            return md.toString();
+        }
+
+        String globals(Documentation documentation) {
+            StringBuilder md = new StringBuilder("# Global Functions and Variables\n\n");
+            if (!documentation.functions.isEmpty()) {
+                md.append("## Global Functions\n\n");
+                for (Function function : documentation.functions) {
+                    appendFunction(md, function, false);
+                }
+            }
+            if (!documentation.variables.isEmpty()) {
+                md.append("## Variables\n\n| Variable | Type | Scope | Description |\n| --- | --- | --- | --- |\n");
+                for (Variable variable : documentation.variables) {
+                    md.append("| ");
+                    appendEscaped(md, variable.name);
+                    md.append(" | ");
+                    appendType(md, variable.type);
+                    md.append(" | ").append(variable.isLocal ? "local" : "global").append(" | ");
+                    appendCell(md, variable.description);
+                    md.append(" |\n");
+                }
+                md.append('\n');
+            }
+            return md.toString();
+        }
+
+        private void appendFunction(StringBuilder md, Function function, boolean isMethod) {
+            md.append("### <a id=\"").append(ids.anchor(function)).append("\"></a>");
+            appendEscaped(md, function.name);
+            md.append("\n\n");
+
+            md.append("**");
+            appendEscaped(md, function.name);
+            md.append("**(");
+            for (int i = 0; i < function.parameters.size(); i++) {
+                if (i > 0) md.append(", ");
+                Function.Parameter param = function.parameters.get(i);
+                appendEscaped(md, param.name);
+                md.append(": ");
+                appendType(md, param.type);
+            }
+            md.append(")");
+            if (function.returnType != null && !function.returnType.isEmpty()) {
+                md.append(": ");
+                appendType(md, function.returnType);
+            }
+            md.append("\n\n");
+
+            if (isMethod && function.isStatic) {
+                md.append("*static*\n\n");
+            }
+            if (isMethod && function.nodiscard) {
+                md.append("*@nodiscard - Return value should not be ignored*\n\n");
+            }
+            if (!function.description.isEmpty()) {
+                appendEscaped(md, function.description);
+                md.append("\n\n");
+            }
+
+            if (!function.parameters.isEmpty()) {
+                md.append("**Parameters:**\n\n");
+                for (Function.Parameter param : function.parameters) {
+                    md.append("- `").append(param.name).append("` (");
+                    appendType(md, param.type);
+                    md.append(")");
+                    if (!param.description.isEmpty()) {
+                        md.append(": ");
+                        appendEscaped(md, param.description);
+                    }
+                    md.append('\n');
+                }
+                md.append('\n');
+            }
+
+            if (function.returnType != null && !function.returnType.isEmpty() && !function.returnDescription.isEmpty()) {
+                md.append("**Returns:** ");
+                appendEscaped(md, function.returnDescription);
+                md.append("\n\n");
+            }
+
+            for (String example : function.examples) {
+                md.append("```lua\n").append(example).append("\n```\n\n");
+            }
+
+            appendSeeReferences(md, function.seeReferences);
+        }
+
+        private void appendSeeReferences(StringBuilder md, List<SeeReference> seeReferences) {
+            if (seeReferences.isEmpty()) {
+                return;
+            }
+            md.append("**See also:**\n\n");
+            for (SeeReference see : seeReferences) {
+                md.append("- ");
+                String target = linkTarget(see);
+                if (target != null) {
+                    md.append('[');
+                    appendEscaped(md, see.referenceName);
+                    md.append("](").append(target).append(')');
+                } else {
+                    appendEscaped(md, see.referenceName);
+                }
+                if (!see.description.isEmpty()) {
+                    md.append(" - ");
+                    appendEscaped(md, see.description);
+                }
+                md.append('\n');
+            }
+            md.append('\n');
+        }
+
+        /**
+         * Resolves a see reference like the HTML pages do, null if it cannot be linked.
+         */
+        private String linkTarget(SeeReference see) {
+            String name = see.referenceName;
+            switch (see.type) {
+                case CLASS:
+                    return classes.containsKey(name) ? ids.classFile(name) + ".md" : null;
+                case FUNCTION:
+                case METHOD:
+                    String[] parts = name.split("\\.");
+                    if (parts.length >= 2) {
+                        return classes.containsKey(parts[0])
+                            ? ids.classFile(parts[0]) + ".md#" + ids.methodAnchor(parts[0], parts[1]) : null;
+                    }
+                    return globalFunctionTarget(name);
+                case GLOBAL_FUNCTION:
+                    return globalFunctionTarget(name);
+                default:
+                    return null;
+            }
+        }
+
+        private String globalFunctionTarget(String name) {
+            return globalFunctions.contains(name) ? "globals.md#" + ids.globalFunctionAnchor(name) : null;
+        }
+
+        private void appendClassLink(StringBuilder md, String className) {
+            if (classes.containsKey(className)) {
+                md.append('[');
+                appendEscaped(md, className);
+                md.append("](").append(ids.classFile(className)).append(".md)");
+            } else {
+                appendEscaped(md, className);
+            }
+        }
+
+        /**
+         * Appends a type, linking every documented class named in it.
+         */
+        private void appendType(StringBuilder md, String type) {
+            if (type == null || type.isEmpty()) {
+                return;
+            }
+            // Generic class names like BaseTable<T> are documented as they are
+            if (classes.containsKey(type)) {
+                appendClassLink(md, type);
+                return;
+            }
+            int start = 0;
+            while (start < type.length()) {
+                int end = start;
+                while (end < type.length() && isNameChar(type.charAt(end))) {
+                    end++;
+                }
+                if (end > start) {
+                    appendClassLink(md, type.substring(start, end));
+                    start = end;
+                } else {
+                    appendEscaped(md, type.substring(start, start + 1));
+                    start++;
+                }
+            }
+        }
+
+        private static boolean isNameChar(char c) {
+            return Character.isLetterOrDigit(c) || c == '_' || c == '.';
+        }
+
+        /**
+         * Appends text that is rendered literally, with Markdown and HTML syntax escaped.
+         */
+        private static void appendEscaped(StringBuilder md, String text) {
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if ("\\`*_[]<>|#".indexOf(c) >= 0) {
+                    md.append('\\');
+                }
+                md.append(c);
+            }
+        }
+
+        /**
+         * Appends text into a table cell, which has to stay on one line.
+         */
+        private static void appendCell(StringBuilder md, String text) {
+            appendEscaped(md, text.replace("\r", "").replace("\n", " "));
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package de.fb.ldg;
+
+import java.util.Locale;
+
+/**
+ * Decides what happens when several files declare the same function or variable. Functions are
+ * identified by owner (class or global), name and signature (static or instance, parameter types),
+ * variables by name.
+ */
+public enum MergePolicy {
+    /**
+     * One declaration per name, the first in input order wins. Overloads are dropped.
+     */
+    KEEP_FIRST,
+    /**
+     * One declaration per name, the last in input order wins. Overloads are dropped.
+     */
+    KEEP_LAST,
+    /**
+     * Declarations with different signatures are all kept, for identical signatures the first wins.
+     */
+    KEEP_ALL_OVERLOADS,
+    /**
+     * Like {@link #KEEP_ALL_OVERLOADS}, but a second declaration with the same signature is an error.
+     */
+    ERROR;
+
+    /**
+     * Parses a policy name as used on the command line, e.g. "keep-first".
+     * @param name the policy name
+     * @return the policy
+     * @throws IllegalArgumentException if there is no such policy
+     */
+    public static MergePolicy fromName(String name) {
+        return valueOf(name.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+    }
+
+    /**
+     * @return whether functions with the same name but different signatures are kept
+     */
+    boolean keepsOverloads() {
+        return this == KEEP_ALL_OVERLOADS || this == ERROR;
+    }
+}
@@ -0,0 +1,138 @@
+package de.fb.ldg;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Trie of the dotted class names, e.g. {@code Config.General.Network} is found below
+ * {@code Config} and {@code Config.General}. The tree is built in a single pass over the class
+ * names, so its size and construction time are linear in the total length of the names.
+ *
+ * <p>A namespace with more classes than the configured limit is rendered on its own page and the
+ * pages above only link to it, which keeps index.html small for large code bases.</p>
+ */
+public class NamespaceTree {
+
+    /**
+     * A segment of a class name. A node is a namespace if it has children and a class if a class
+     * with its full name is documented, or both.
+     */
+    public static class Node {
+        /**
+         * The last segment of the name, e.g. {@code Network}.
+         */
+        public final String segment;
+
+        /**
+         * The full dotted name, empty for the root.
+         */
+        public final String name;
+
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private Class clazz;
+        private int classCount;
+        private boolean ownPage;
+
+        Node(String segment, String name) {
+            this.segment = segment;
+            this.name = name;
+        }
+
+        /**
+         * @return the documented class with this name, or null for a pure namespace
+         */
+        public Class getClazz() {
+            return clazz;
+        }
+
+        /**
+         * @return the direct children in the order their first class was documented
+         */
+        public Collection<Node> getChildren() {
+            return children.values();
+        }
+
+        /**
+         * @return the number of classes below this node, not counting the node itself
+         */
+        public int getClassCount() {
+            return classCount;
+        }
+
+        /**
+         * @return whether this namespace is rendered on its own page
+         */
+        public boolean hasOwnPage() {
+            return ownPage;
+        }
+    }
+
+    private final Node root = new Node("", "");
+    private final List<Node> pages = new ArrayList<>();
+
+    /**
+     * Builds the tree of the given classes.
+     * @param classes the documented classes
+     * @param namespacePageSize namespaces with more classes get their own page, 0 to never split
+     */
+    public NamespaceTree(List<Class> classes, int namespacePageSize) {
+        for (Class clazz : classes) {
+            Node node = root;
+            int start = 0;
+            while (start <= clazz.name.length()) {
+                int end = clazz.name.indexOf('.', start);
+                if (end < 0) {
+                    end = clazz.name.length();
+                }
+                String segment = clazz.name.substring(start, end);
+                Node parent = node;
+                node = parent.children.computeIfAbsent(segment,
+                    k -> new Node(segment, parent == root ? segment : parent.name + "." + segment));
+                start = end + 1;
+            }
+            if (node.clazz == null) {
+                node.clazz = clazz;
+            }
+        }
+        count(root);
+        if (namespacePageSize > 0) {
+            split(root, namespacePageSize);
+        }
+    }
+
+    private static int count(Node node) {
+        int count = 0;
+        for (Node child : node.children.values()) {
+            count += count(child) + (child.clazz != null ? 1 : 0);
+        }
+        node.classCount = count;
+        return count;
+    }
+
+    private void split(Node node, int namespacePageSize) {
+        for (Node child : node.children.values()) {
+            if (child.classCount > namespacePageSize) {
+                child.ownPage = true;
+                pages.add(child);
+            }
+            split(child, namespacePageSize);
+        }
+    }
+
+    /**
+     * @return the root node, its children are the top level names
+     */
+    public Node getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the namespaces rendered on their own page, outer namespaces first
+     */
+    public List<Node> getPagedNamespaces() {
+        return new ArrayList<>(pages);
+    }
+}
@@ -0,0 +1,143 @@
+package de.fb.ldg;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * An output format the merged documentation can be written in. Besides the built-in backends,
+ * further ones are found with {@link ServiceLoader} if their jar lists them in
+ * {@code META-INF/services/de.fb.ldg.OutputBackend}.
+ *
+ * <p>Backends only read the documentation, the same frozen {@link Documentation} is handed to
+ * several backends at the same time.</p>
+ */
+public interface OutputBackend {
+
+    /**
+     * @return the name used to select the backend on the command line, e.g. {@code html}
+     */
+    String getName();
+
+    /**
+     * Writes the documentation.
+     * @param documentation the frozen documentation
+     * @param output where to write to, a directory, archive or file depending on the backend
+     * @param options the options of the build; backends use the ones that apply to them, e.g.
+     *     {@link DocOptions#html} for the pages and the gzip and compression settings of page outputs
+     */
+    void generate(Documentation documentation, String output, DocOptions options);
+
+    /**
+     * Returns where the backend writes to if several backends run and no output was given for it.
+     * @param output the output given with --output
+     * @return the output of this backend
+     */
+    default String defaultOutput(String output) {
+        return output + "-" + getName();
+    }
+
+    /**
+     * @return the built-in backends followed by the ones found by the service loader, by name
+     */
+    static Map<String, OutputBackend> available() {
+        Map<String, OutputBackend> backends = new LinkedHashMap<>();
+        for (OutputBackend backend : List.of(new HtmlBackend(), new MarkdownBackend(),
+                new JsonBackend(false), new JsonBackend(true), new LuaStubBackend())) {
+            backends.put(backend.getName(), backend);
+        }
+        for (OutputBackend backend : ServiceLoader.load(OutputBackend.class)) {
+            backends.putIfAbsent(backend.getName(), backend);
+        }
+        return backends;
+    }
+
+    /**
+     * Returns the backend with the given name.
+     * @param name the name, e.g. {@code markdown}
+     * @return the backend
+     * @throws IllegalArgumentException if there is no such backend
+     */
+    static OutputBackend forName(String name) {
+        Map<String, OutputBackend> backends = available();
+        OutputBackend backend = backends.get(name.toLowerCase(Locale.ROOT));
+        if (backend == null) {
+            throw new IllegalArgumentException("Unknown format '" + name + "', expected one of " + backends.keySet());
+        }
+        return backend;
+    }
+
+    /**
+     * Resolves formats to their backends and outputs. A single format writes to the given output,
+     * with several formats each one without an explicit output uses its {@link #defaultOutput}.
+     * @param formats format names and their outputs, null for the default; html if empty
+     * @param output the output given with --output
+     * @return the backends and where each of them writes to
+     * @throws IllegalArgumentException if a format is unknown
+     */
+    static Map<OutputBackend, String> resolve(Map<String, String> formats, String output) {
+        if (formats.isEmpty()) {
+            formats = Map.of("html", output);
+        }
+        Map<OutputBackend, String> outputs = new LinkedHashMap<>();
+        for (Map.Entry<String, String> format : formats.entrySet()) {
+            OutputBackend backend = forName(format.getKey());
+            String target = format.getValue();
+            if (target == null) {
+                target = formats.size() == 1 ? output : backend.defaultOutput(output);
+            }
+            outputs.put(backend, target);
+        }
+        return outputs;
+    }
+
+    /**
+     * Runs several backends on the same documentation, each on its own thread.
+     * @param documentation the frozen documentation
+     * @param outputs the backends and the output each of them writes to
+     * @param options the options of the build
+     * @throws RuntimeException the first error of a backend, the other backends are still completed
+     */
+    static void generateAll(Documentation documentation, Map<OutputBackend, String> outputs, DocOptions options) {
+        if (outputs.size() == 1) {
+            Map.Entry<OutputBackend, String> output = outputs.entrySet().iterator().next();
+            output.getKey().generate(documentation, output.getValue(), options);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Map.Entry<OutputBackend, String> output : outputs.entrySet()) {
+                futures.add(executor.submit(() -> output.getKey().generate(documentation, output.getValue(), options)));
+            }
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                RuntimeException error = e.getCause() instanceof RuntimeException runtime
+                    ? runtime : new RuntimeException(e.getCause());
+                if (failure == null) {
+                    failure = error;
+                } else {
+                    failure.addSuppressed(error);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while generating documentation", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package de.fb.ldg;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Bounded LRU cache for rendered pages, limited by the total number of cached bytes.
+ */
+public class PageCache {
+
+    /**
+     * A rendered page together with its gzip compressed form and their entity tags.
+     */
+    public static class Entry {
+        public final byte[] body;
+        public final byte[] gzipped;
+        public final String etag;
+
+        /**
+         * The entity tag of the gzip compressed body, a strong tag must differ between encodings.
+         */
+        public final String gzipEtag;
+
+        /**
+         * Creates a new cache entry and compresses the body.
+         * @param body the rendered page
+         */
+        public Entry(byte[] body) {
+            this.body = body;
+            this.gzipped = Compression.gzip(body);
+
+            CRC32 crc = new CRC32();
+            crc.update(body);
+            String tag = Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(body.length);
+            this.etag = "\"" + tag + "\"";
+            this.gzipEtag = "\"" + tag + "-gz\"";
+        }
+
+        long size() {
+            return body.length + gzipped.length;
+        }
+    }
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long currentBytes = 0;
+
+    /**
+     * Creates a new cache.
+     * @param maxBytes the maximum number of bytes kept in the cache
+     */
+    public PageCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the cached entry for the given page and marks it as recently used.
+     * @param page the page name
+     * @return the entry or null if the page is not cached
+     */
+    public synchronized Entry get(String page) {
+        Entry entry = entries.get(page);
+        Tracing.cacheLookup("page", page, entry != null);
+        return entry;
+    }
+
+    /**
+     * Adds a page to the cache, evicting the least recently used pages if necessary.
+     * Pages larger than the whole cache are not stored.
+     * @param page the page name
+     * @param entry the rendered page
+     */
+    public synchronized void put(String page, Entry entry) {
+        if (entry.size() > maxBytes) {
+            return;
+        }
+
+        Entry previous = entries.put(page, entry);
+        if (previous != null) {
+            currentBytes -= previous.size();
+        }
+        currentBytes += entry.size();
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            currentBytes -= eldest.getValue().size();
+            it.remove();
+        }
+    }
+
+    /**
+     * Removes all pages from the cache.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        currentBytes = 0;
+    }
+
+    /**
+     * @return the number of cached pages
+     */
+    public synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,168 @@
+package de.fb.ldg;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Assigns every class and every namespace page a unique file name and every function a unique
+ * anchor, once for the whole documentation. Names are reduced to characters that are safe in file names and ids, so
+ * different names may end up the same ({@code A.B} and {@code A_B}). Such collisions are resolved
+ * in documentation order: the first name keeps the plain id, later ones get a numeric suffix.
+ * File names are compared ignoring case, so pages do not overwrite each other on case
+ * insensitive file systems either.
+ */
+public class PageIds {
+
+    /**
+     * File names used by other pages, a class must not get one of these.
+     */
+    private static final List<String> RESERVED_FILES = List.of("index", "globals");
+
+    private final Map<String, String> classFiles = new HashMap<>();
+    private final Map<String, String> namespaceFiles = new HashMap<>();
+    private final Map<Function, String> functionAnchors = new IdentityHashMap<>();
+    private final Map<String, Map<String, String>> methodAnchors = new HashMap<>();
+    private final Map<String, String> globalFunctionAnchors = new HashMap<>();
+
+    /**
+     * Assigns the ids of all classes and functions of the documentation.
+     * @param documentation the documentation
+     */
+    public PageIds(Documentation documentation) {
+        this(documentation, List.of());
+    }
+
+    /**
+     * Assigns the ids of all classes, functions and namespace pages of the documentation.
+     * @param documentation the documentation
+     * @param namespaces the full names of the namespaces rendered on their own page, in tree order
+     */
+    public PageIds(Documentation documentation, List<String> namespaces) {
+        Set<String> takenFiles = new HashSet<>(RESERVED_FILES);
+        for (Class clazz : documentation.classes) {
+            if (!classFiles.containsKey(clazz.name)) {
+                classFiles.put(clazz.name, unique(toFileName(clazz.name), "_", takenFiles, true));
+            }
+        }
+
+        // Class files never contain '-', so namespace pages only collide with each other
+        Set<String> takenNamespaceFiles = new HashSet<>();
+        for (String namespace : namespaces) {
+            if (!namespaceFiles.containsKey(namespace)) {
+                namespaceFiles.put(namespace, "namespace-" + unique(toFileName(namespace), "_", takenNamespaceFiles, true));
+            }
+        }
+
+        for (Class clazz : documentation.classes) {
+            Set<String> takenAnchors = new HashSet<>();
+            Map<String, String> anchors = methodAnchors.computeIfAbsent(clazz.name, k -> new HashMap<>());
+            for (Function function : clazz.functions) {
+                String anchor = unique(toId(function.name), "-", takenAnchors, false);
+                functionAnchors.put(function, anchor);
+                anchors.putIfAbsent(function.name, anchor);
+            }
+        }
+
+        // All global functions share one anchor space, they may be split over several pages
+        Set<String> takenAnchors = new HashSet<>();
+        for (Function function : documentation.functions) {
+            String anchor = unique(toId(function.name), "-", takenAnchors, false);
+            functionAnchors.put(function, anchor);
+            globalFunctionAnchors.putIfAbsent(function.name, anchor);
+        }
+    }
+
+    private static String unique(String id, String separator, Set<String> taken, boolean ignoreCase) {
+        String candidate = id;
+        for (int i = 2; !taken.add(ignoreCase ? candidate.toLowerCase(Locale.ROOT) : candidate); i++) {
+            candidate = id + separator + i;
+        }
+        return candidate;
+    }
+
+    /**
+     * Returns the file name of the first page of a class, without the .html extension.
+     * @param className the name of the class
+     * @return the assigned name, or the plain reduced name for classes that are not documented
+     */
+    public String classFile(String className) {
+        String file = classFiles.get(className);
+        return file != null ? file : toFileName(className);
+    }
+
+    /**
+     * Returns the file name of the page of a namespace, without the .html extension.
+     * @param namespace the full dotted name of the namespace
+     * @return the assigned name, or the plain reduced name for namespaces without an own page
+     */
+    public String namespaceFile(String namespace) {
+        String file = namespaceFiles.get(namespace);
+        return file != null ? file : "namespace-" + toFileName(namespace);
+    }
+
+    /**
+     * Returns the anchor of a documented class method or global function.
+     * @param function the function
+     * @return the assigned anchor, or the plain reduced name for unknown functions
+     */
+    public String anchor(Function function) {
+        String anchor = functionAnchors.get(function);
+        return anchor != null ? anchor : toId(function.name);
+    }
+
+    /**
+     * Returns the anchor of the first method with the given name of a class.
+     * @param className the name of the class
+     * @param methodName the name of the method
+     * @return the anchor
+     */
+    public String methodAnchor(String className, String methodName) {
+        Dependencies.readMethod(className, methodName);
+        Map<String, String> anchors = methodAnchors.get(className);
+        String anchor = anchors != null ? anchors.get(methodName) : null;
+        return anchor != null ? anchor : toId(methodName);
+    }
+
+    /**
+     * Returns the anchor of the first global function with the given name.
+     * @param functionName the name of the function
+     * @return the anchor
+     */
+    public String globalFunctionAnchor(String functionName) {
+        Dependencies.readFunction(functionName);
+        String anchor = globalFunctionAnchors.get(functionName);
+        return anchor != null ? anchor : toId(functionName);
+    }
+
+    /**
+     * Replaces all characters except ASCII letters and digits with underscores.
+     */
+    static String toFileName(String name) {
+        return replaceUnsafe(name, false);
+    }
+
+    /**
+     * Replaces all characters except ASCII letters, digits, '_' and '-' with underscores.
+     */
+    static String toId(String name) {
+        return replaceUnsafe(name, true);
+    }
+
+    private static String replaceUnsafe(String name, boolean allowSeparators) {
+        char[] chars = name.toCharArray();
+        for (int i = 0; i < chars.length; i++) {
+            char c = chars[i];
+            boolean safe = (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')
+                || (allowSeparators && (c == '_' || c == '-'));
+            if (!safe) {
+                chars[i] = '_';
+            }
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,200 @@
+package de.fb.ldg;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decides which page every class, method and global element is rendered on. Global elements
+ * and the members of a class are split into several pages once they exceed the page size, so
+ * links always have to be resolved through this layout.
+ */
+public final class PageLayout {
+
+    /**
+     * The documentation this layout was computed for.
+     */
+    public final Documentation documentation;
+
+    /**
+     * Maximum number of global elements or class members rendered on one page.
+     */
+    public final int pageSize;
+
+    /**
+     * The unique file names of the classes and anchors of the functions.
+     */
+    public final PageIds ids;
+
+    /**
+     * The inherited members of every class, resolved once for all pages.
+     */
+    public final Inheritance inheritance;
+
+    /**
+     * The places referencing every class, built once for all pages.
+     */
+    public final ReferenceIndex references;
+
+    /**
+     * The classes grouped by namespace for the overview and namespace pages.
+     */
+    public final NamespaceTree namespaces;
+
+    private final Map<String, Class> classesByName = new HashMap<>();
+    private final Map<String, Integer> globalFunctionPositions = new HashMap<>();
+    private final Map<String, Map<String, Integer>> methodPositions = new HashMap<>();
+    private final Map<String, NamespaceTree.Node> namespacePages = new HashMap<>();
+
+    /**
+     * Computes the layout for the given documentation.
+     * @param documentation The documentation to lay out
+     * @param pageSize Maximum number of elements on one page
+     */
+    public PageLayout(Documentation documentation, int pageSize) {
+        this(documentation, pageSize, HtmlOptions.DEFAULT_NAMESPACE_PAGE_SIZE);
+    }
+
+    /**
+     * Computes the layout for the given documentation.
+     * @param documentation The documentation to lay out
+     * @param pageSize Maximum number of elements on one page
+     * @param namespacePageSize Namespaces with more classes are listed on their own page, 0 to never split
+     */
+    public PageLayout(Documentation documentation, int pageSize, int namespacePageSize) {
+        this.documentation = documentation;
+        this.pageSize = Math.max(1, pageSize);
+        this.namespaces = new NamespaceTree(documentation.classes, namespacePageSize);
+        List<NamespaceTree.Node> pagedNamespaces = namespaces.getPagedNamespaces();
+        this.ids = new PageIds(documentation, pagedNamespaces.stream().map(namespace -> namespace.name).toList());
+        this.inheritance = new Inheritance(documentation);
+        for (NamespaceTree.Node namespace : pagedNamespaces) {
+            namespacePages.put(namespacePage(namespace.name), namespace);
+        }
+
+        for (Class clazz : documentation.classes) {
+            classesByName.putIfAbsent(clazz.name, clazz);
+        }
+        for (int i = 0; i < documentation.functions.size(); i++) {
+            globalFunctionPositions.putIfAbsent(documentation.functions.get(i).name, i);
+        }
+        this.references = new ReferenceIndex(this);
+    }
+
+    /**
+     * Checks whether a class with the given name is documented.
+     */
+    public boolean classExists(String className) {
+        Dependencies.readLink(className);
+        return classesByName.containsKey(className);
+    }
+
+    /**
+     * Returns the documented class with the given name or null.
+     */
+    public Class findClass(String className) {
+        Dependencies.readClass(className);
+        return classesByName.get(className);
+    }
+
+    /**
+     * Checks whether a global function with the given name is documented.
+     */
+    public boolean globalFunctionExists(String functionName) {
+        Dependencies.readFunction(functionName);
+        return globalFunctionPositions.containsKey(functionName);
+    }
+
+    /**
+     * @return the number of pages global functions and variables are split into, 1 if they fit on one page
+     */
+    public int globalsPageCount() {
+        int elements = documentation.functions.size() + documentation.variables.size();
+        return Math.max(1, (elements + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Returns the file name of a page of global elements. If the globals are split, globals.html
+     * only links to the numbered pages.
+     * @param page the zero based page index
+     */
+    public String globalsPage(int page) {
+        return globalsPageCount() == 1 ? "globals.html" : "globals-" + (page + 1) + ".html";
+    }
+
+    /**
+     * Returns the page the given global function is rendered on.
+     */
+    public String globalFunctionPage(String functionName) {
+        Dependencies.readFunction(functionName);
+        Integer position = globalFunctionPositions.get(functionName);
+        return globalsPage(position == null ? 0 : position / pageSize);
+    }
+
+    /**
+     * Returns the page the global variable at the given position is rendered on.
+     */
+    public String globalVariablePage(int index) {
+        return globalsPage((documentation.functions.size() + index) / pageSize);
+    }
+
+    /**
+     * @return the number of pages the members of the class are split into
+     */
+    public int classPageCount(Class clazz) {
+        int members = clazz.fields.size() + clazz.functions.size();
+        return Math.max(1, (members + pageSize - 1) / pageSize);
+    }
+
+    /**
+     * Returns the file name of a page of the given class. The first page keeps the plain class file name.
+     * @param className the name of the class
+     * @param page the zero based page index
+     */
+    public String classPage(String className, int page) {
+        Dependencies.readLink(className);
+        String fileName = ids.classFile(className);
+        return page == 0 ? fileName + ".html" : fileName + "-" + (page + 1) + ".html";
+    }
+
+    /**
+     * Returns the file name of the page of a namespace rendered on its own page.
+     */
+    public String namespacePage(String namespace) {
+        return ids.namespaceFile(namespace) + ".html";
+    }
+
+    /**
+     * Returns the namespace rendered on the given page.
+     * @param page the file name of the page
+     * @return the namespace or null if the page is no namespace page
+     */
+    public NamespaceTree.Node findNamespacePage(String page) {
+        return namespacePages.get(page);
+    }
+
+    /**
+     * Returns the class page the given method is rendered on.
+     */
+    public String methodPage(String className, String methodName) {
+        Dependencies.readMethod(className, methodName);
+        Class clazz = classesByName.get(className);
+        if (clazz == null) {
+            return classPage(className, 0);
+        }
+
+        Map<String, Integer> positions;
+        synchronized (methodPositions) {
+            positions = methodPositions.computeIfAbsent(className, k -> {
+                Map<String, Integer> map = new HashMap<>();
+                List<Function> functions = clazz.functions;
+                for (int i = 0; i < functions.size(); i++) {
+                    map.putIfAbsent(functions.get(i).name, clazz.fields.size() + i);
+                }
+                return map;
+            });
+        }
+        Integer position = positions.get(methodName);
+        return classPage(className, position == null ? 0 : position / pageSize);
+    }
+}
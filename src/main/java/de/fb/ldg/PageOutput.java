@@ -0,0 +1,50 @@
+package de.fb.ldg;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Target the generated pages are written to. Implementations must allow concurrent calls to
+ * {@link #write(String, String)} from several render workers.
+ */
+public interface PageOutput extends Closeable {
+
+    /**
+     * Writes a file.
+     * @param relativePath the path of the file relative to the output root, using '/' as separator
+     * @param content the content of the file
+     * @throws IOException if the file cannot be written
+     */
+    void write(String relativePath, String content) throws IOException;
+
+    /**
+     * Completes the output after every file was written. Closing an output without finishing it
+     * means the generation failed, outputs that can keep the previous result do so.
+     * @throws IOException if the output cannot be completed
+     */
+    default void finish() throws IOException {
+    }
+
+    /**
+     * @return a short human readable description of the target and what was written to it
+     */
+    String describe();
+
+    /**
+     * Opens the output for the given target. Targets ending with .zip or .jar are written as an
+     * archive, everything else as a directory.
+     * @param target the output directory or archive
+     * @param options options for the generation
+     * @return the opened output
+     * @throws IOException if the output cannot be created
+     */
+    static PageOutput open(Path target, HtmlOptions options) throws IOException {
+        String name = target.getFileName() != null ? target.getFileName().toString().toLowerCase(Locale.ROOT) : "";
+        if (name.endsWith(".zip") || name.endsWith(".jar")) {
+            return new ZipOutput(target, options.compressionLevel);
+        }
+        return new DirectoryOutput(target, options.gzip);
+    }
+}
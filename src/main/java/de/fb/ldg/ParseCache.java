@@ -0,0 +1,215 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the parsed documentation of single Lua files in memory. An entry is reused as long
+ * as size and modification time of the file are unchanged. With a {@link StringPool}, names and
+ * types of all cached files share their strings.
+ *
+ * <p>Entries that no build used for a while are dropped by {@link #finishBuild()}, so a long running
+ * process does not keep files of projects it no longer builds.</p>
+ */
+public class ParseCache {
+
+    /**
+     * Number of builds an entry is kept without being used, so a process alternating between a few
+     * projects keeps the files of all of them.
+     */
+    public static final int DEFAULT_MAX_IDLE_BUILDS = 8;
+
+    private static class CachedFile {
+        final long size;
+        final FileTime lastModified;
+        final Documentation documentation;
+        volatile int lastBuild;
+
+        CachedFile(long size, FileTime lastModified, Documentation documentation, int lastBuild) {
+            this.size = size;
+            this.lastModified = lastModified;
+            this.documentation = documentation;
+            this.lastBuild = lastBuild;
+        }
+    }
+
+    private final ConcurrentHashMap<String, CachedFile> files = new ConcurrentHashMap<>();
+    private final AtomicInteger builds = new AtomicInteger();
+    private volatile int maxIdleBuilds = DEFAULT_MAX_IDLE_BUILDS;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final StringPool strings;
+
+    /**
+     * Creates a cache that keeps the parsed documentation as it is.
+     */
+    public ParseCache() {
+        this(null);
+    }
+
+    /**
+     * Creates a cache that pools the strings of the cached files.
+     * @param strings the pool, or null to keep the documentation as it is
+     */
+    public ParseCache(StringPool strings) {
+        this.strings = strings;
+    }
+
+    /**
+     * Sets after how many builds without a use an entry is dropped.
+     * @param maxIdleBuilds the number of builds, at least 1 to keep the files of the last build
+     * @return this cache
+     */
+    public ParseCache maxIdleBuilds(int maxIdleBuilds) {
+        this.maxIdleBuilds = Math.max(1, maxIdleBuilds);
+        return this;
+    }
+
+    /**
+     * Returns the documentation of the given file, parsing it only if it changed since the last call.
+     * The returned documentation is shared and must not be modified.
+     * @param path the Lua file
+     * @return the documentation of the file
+     * @throws IOException if the file cannot be read
+     */
+    public Documentation get(Path path) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        return get(path, attributes.size(), attributes.lastModifiedTime());
+    }
+
+    /**
+     * Returns the documentation of a discovered file, using the attributes read during discovery
+     * instead of reading them again.
+     * @param source the discovered file
+     * @return the documentation of the file
+     * @throws IOException if the file cannot be read
+     */
+    public Documentation get(SourceDiscovery.SourceFile source) throws IOException {
+        Path path = SourceArchives.resolve(source.path);
+        if (!source.hasAttributes()) {
+            return get(path);
+        }
+        return get(path, source.size, source.lastModified);
+    }
+
+    private Documentation get(Path path, long size, FileTime lastModified) {
+        Path absolute = path.toAbsolutePath().normalize();
+        String key = key(absolute);
+
+        CachedFile cached = files.get(key);
+        if (cached != null && cached.size == size && cached.lastModified.equals(lastModified)) {
+            cached.lastBuild = builds.get();
+            hits.incrementAndGet();
+            Tracing.cacheLookup("parse", key, true);
+            return cached.documentation;
+        }
+
+        misses.incrementAndGet();
+        Tracing.cacheLookup("parse", key, false);
+        Documentation documentation = pool(DocGenerator.generate(absolute));
+        files.put(key, new CachedFile(size, lastModified, documentation, builds.get()));
+        return documentation;
+    }
+
+    /**
+     * Returns the cached documentation of a discovered file if the file did not change, without
+     * parsing it on a miss.
+     * @param source the discovered file, including its attributes
+     * @return the cached documentation or null
+     */
+    public Documentation lookup(SourceDiscovery.SourceFile source) {
+        CachedFile cached = files.get(key(SourceArchives.resolve(source.path)));
+        if (cached != null && source.hasAttributes() && cached.size == source.size
+                && cached.lastModified.equals(source.lastModified)) {
+            cached.lastBuild = builds.get();
+            hits.incrementAndGet();
+            Tracing.cacheLookup("parse", source.path, true);
+            return cached.documentation;
+        }
+        misses.incrementAndGet();
+        Tracing.cacheLookup("parse", source.path, false);
+        return null;
+    }
+
+    /**
+     * Stores the documentation of a discovered file that was parsed after a failed {@link #lookup}.
+     * @param source the discovered file, including its attributes
+     * @param documentation the parsed documentation, which must not be modified afterwards
+     * @return the documentation as stored, with pooled strings if the cache has a pool
+     */
+    public Documentation store(SourceDiscovery.SourceFile source, Documentation documentation) {
+        if (source.hasAttributes()) {
+            documentation = pool(documentation);
+            files.put(key(SourceArchives.resolve(source.path)), new CachedFile(source.size, source.lastModified, documentation, builds.get()));
+        }
+        return documentation;
+    }
+
+    private Documentation pool(Documentation documentation) {
+        return strings != null ? strings.intern(documentation) : documentation;
+    }
+
+    /**
+     * Files are keyed by URI, so files inside an archive survive reopening its file system.
+     */
+    private static String key(Path path) {
+        return path.toAbsolutePath().normalize().toUri().toString();
+    }
+
+    /**
+     * Ends a build and drops the entries that were not used by it or the builds before it, see
+     * {@link #maxIdleBuilds(int)}. The string pool is then rebuilt from the remaining entries, so
+     * it does not keep the names of dropped files either.
+     * @return the number of dropped entries
+     */
+    public int finishBuild() {
+        int build = builds.getAndIncrement();
+        int idle = maxIdleBuilds;
+        int before = files.size();
+        files.values().removeIf(cached -> build - cached.lastBuild >= idle);
+        int dropped = before - files.size();
+        if (dropped > 0 && strings != null) {
+            strings.clear();
+            files.replaceAll((key, cached) ->
+                new CachedFile(cached.size, cached.lastModified, strings.intern(cached.documentation), cached.lastBuild));
+        }
+        return Math.max(0, dropped);
+    }
+
+    /**
+     * Removes all entries and pooled strings from the cache.
+     */
+    public void clear() {
+        files.clear();
+        if (strings != null) {
+            strings.clear();
+        }
+    }
+
+    /**
+     * @return the number of cached files
+     */
+    public int size() {
+        return files.size();
+    }
+
+    /**
+     * @return the number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * @return the number of lookups that required parsing the file
+     */
+    public long getMisses() {
+        return misses.get();
+    }
+}
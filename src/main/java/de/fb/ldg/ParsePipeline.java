@@ -0,0 +1,230 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Reads, parses and merges Lua files in overlapping stages:
+ * <ol>
+ * <li>readers on virtual threads load the file contents into a bounded read queue,</li>
+ * <li>a fixed number of parse workers take contents from that queue, parse them and merge the
+ * result into a shared {@link DocumentationBuilder} as soon as a file is done,</li>
+ * <li>the builder is frozen once every file is merged.</li>
+ * </ol>
+ * A file enters the pipeline only when one of {@code readQueue + parseThreads} slots is free and
+ * leaves it when it is merged, so at most that many file contents are held at once, independent
+ * of the number of files. Slow parsing therefore stops the readers instead of filling the memory.
+ */
+public class ParsePipeline {
+
+    public static final int DEFAULT_QUEUE_DEPTH = 64;
+
+    /**
+     * A file read into memory. Content is null for archives, which are parsed by path.
+     */
+    private static class ReadFile {
+        final int index;
+        final SourceDiscovery.SourceFile source;
+        final Path path;
+        final byte[] content;
+
+        ReadFile(int index, SourceDiscovery.SourceFile source, Path path, byte[] content) {
+            this.index = index;
+            this.source = source;
+            this.path = path;
+            this.content = content;
+        }
+    }
+
+    private int parseThreads = Runtime.getRuntime().availableProcessors();
+    private int readQueueDepth = DEFAULT_QUEUE_DEPTH;
+    private ParseCache cache;
+    private MergePolicy mergePolicy = MergePolicy.KEEP_ALL_OVERLOADS;
+    private PrintStream log = System.out;
+
+    /**
+     * Sets the number of threads parsing file contents.
+     * @param parseThreads the number of parse workers
+     * @return this pipeline
+     */
+    public ParsePipeline parseThreads(int parseThreads) {
+        this.parseThreads = Math.max(1, parseThreads);
+        return this;
+    }
+
+    /**
+     * Sets the number of files read ahead of the parse workers.
+     * @param depth the capacity of the read queue
+     * @return this pipeline
+     */
+    public ParsePipeline readQueue(int depth) {
+        this.readQueueDepth = Math.max(1, depth);
+        return this;
+    }
+
+    /**
+     * Reuses unchanged files from the given cache and stores newly parsed files in it.
+     * @param cache the cache, or null to parse every file
+     * @return this pipeline
+     */
+    public ParsePipeline cache(ParseCache cache) {
+        this.cache = cache;
+        return this;
+    }
+
+    /**
+     * Sets how functions and variables declared in several files are merged.
+     * @param mergePolicy the policy
+     * @return this pipeline
+     */
+    public ParsePipeline mergePolicy(MergePolicy mergePolicy) {
+        this.mergePolicy = mergePolicy;
+        return this;
+    }
+
+    /**
+     * Sets where progress messages are written.
+     * @param log the stream, System.out by default
+     * @return this pipeline
+     */
+    public ParsePipeline log(PrintStream log) {
+        this.log = log;
+        return this;
+    }
+
+    /**
+     * Parses the given files and merges them. Files are merged as they finish, the result is the
+     * same as if they had been merged in input order.
+     * @param sources the files to process
+     * @return the combined documentation of all files
+     */
+    public Documentation run(List<SourceDiscovery.SourceFile> sources) {
+        int count = sources.size();
+        List<CompletableFuture<Void>> results = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            results.add(new CompletableFuture<>());
+        }
+
+        Semaphore slots = new Semaphore(readQueueDepth + parseThreads);
+        DocumentationBuilder builder = new DocumentationBuilder(mergePolicy).log(log);
+        BlockingQueue<ReadFile> readQueue = new ArrayBlockingQueue<>(readQueueDepth);
+        ExecutorService readers = Executors.newVirtualThreadPerTaskExecutor();
+        ExecutorService workers = Executors.newFixedThreadPool(parseThreads);
+
+        try {
+            readers.execute(() -> {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        slots.acquire();
+                        int index = i;
+                        readers.execute(() -> read(index, sources.get(index), readQueue, builder, slots, results.get(index)));
+                    }
+                } catch (InterruptedException e) {
+                    // Pipeline was stopped
+                }
+            });
+            for (int i = 0; i < parseThreads; i++) {
+                workers.execute(() -> parse(readQueue, builder, slots, results));
+            }
+
+            // Wait in input order, so the first failing file is reported
+            for (int i = 0; i < count; i++) {
+                String filePath = sources.get(i).path;
+                try {
+                    results.get(i).join();
+                    log.println("Processed file: " + filePath);
+                } catch (Exception e) {
+                    Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+                    log.println("Error processing file " + filePath + ": " + cause.getMessage());
+                    throw new RuntimeException("Failed to process file: " + filePath, cause);
+                }
+            }
+            return builder.freeze();
+        } finally {
+            readers.shutdownNow();
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * Reader stage: merges the file from the cache or loads its content for the parse workers.
+     */
+    private void read(int index, SourceDiscovery.SourceFile source, BlockingQueue<ReadFile> readQueue,
+                      DocumentationBuilder builder, Semaphore slots, CompletableFuture<Void> result) {
+        try {
+            Path path = SourceArchives.resolve(source.path);
+            if (cache != null) {
+                if (!source.hasAttributes()) {
+                    BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+                    source = new SourceDiscovery.SourceFile(source.path, attributes.size(), attributes.lastModifiedTime());
+                }
+                Documentation cached = cache.lookup(source);
+                if (cached != null) {
+                    builder.add(index, cached, source.path);
+                    slots.release();
+                    result.complete(null);
+                    return;
+                }
+            }
+            byte[] content = SourceArchives.isArchive(path) ? null : Files.readAllBytes(path);
+            readQueue.put(new ReadFile(index, source, path, content));
+        } catch (InterruptedException e) {
+            result.cancel(false);
+        } catch (Throwable e) {
+            // The slot is only handed on to a parse worker with the read file
+            slots.release();
+            result.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Parse stage: runs until the pipeline is shut down.
+     */
+    private void parse(BlockingQueue<ReadFile> readQueue, DocumentationBuilder builder, Semaphore slots,
+                       List<CompletableFuture<Void>> results) {
+        while (true) {
+            ReadFile file;
+            try {
+                file = readQueue.take();
+            } catch (InterruptedException e) {
+                return;
+            }
+            try {
+                Documentation documentation = file.content == null
+                    ? DocGenerator.generate(file.path)
+                    : DocGenerator.generate(decode(file.content), file.source.path, file.content.length);
+                if (cache != null) {
+                    documentation = cache.store(file.source, documentation);
+                }
+                builder.add(file.index, documentation, file.source.path);
+                results.get(file.index).complete(null);
+            } catch (Throwable e) {
+                // Errors like a StackOverflowError of the parser must not leave run() waiting
+                results.get(file.index).completeExceptionally(e);
+            } finally {
+                slots.release();
+            }
+        }
+    }
+
+    /**
+     * Decodes UTF-8 strictly, like {@link Files#readString(Path)}.
+     */
+    private static String decode(byte[] content) throws IOException {
+        return StandardCharsets.UTF_8.newDecoder().decode(ByteBuffer.wrap(content)).toString();
+    }
+}
@@ -0,0 +1,178 @@
+package de.fb.ldg;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Reverse index from every documented class to the places referencing it: types of fields,
+ * parameters, return values and global variables, and {@code @see} references. The index is
+ * built in a single pass over the documentation, so looking up the references of a class does
+ * not scan the documentation again.
+ */
+public class ReferenceIndex {
+
+    /**
+     * How a class is referenced.
+     */
+    public enum Kind {
+        FIELD,
+        PARAMETER,
+        RETURN,
+        VARIABLE,
+        SEE
+    }
+
+    /**
+     * A place referencing a class.
+     */
+    public static class Reference {
+        public final Kind kind;
+
+        /**
+         * The class containing the reference, or null for global functions and variables.
+         */
+        public final String owner;
+
+        /**
+         * The field, function or variable containing the reference, or null for a class @see.
+         */
+        public final String member;
+
+        /**
+         * Position of a field in its class or of a global variable, needed to find its page, otherwise -1.
+         */
+        public final int position;
+
+        Reference(Kind kind, String owner, String member, int position) {
+            this.kind = kind;
+            this.owner = owner;
+            this.member = member;
+            this.position = position;
+        }
+    }
+
+    private final PageLayout layout;
+    private final Map<String, List<Reference>> referencesByClass = new HashMap<>();
+
+    /**
+     * Builds the index for the documentation of the given layout.
+     * @param layout the layout, used to decide which names are documented classes
+     */
+    public ReferenceIndex(PageLayout layout) {
+        this.layout = layout;
+        Documentation documentation = layout.documentation;
+
+        for (Class clazz : documentation.classes) {
+            for (int i = 0; i < clazz.fields.size(); i++) {
+                Field field = clazz.fields.get(i);
+                addType(field.type, new Reference(Kind.FIELD, clazz.name, field.name, i));
+            }
+            for (Function function : clazz.functions) {
+                addFunction(function, clazz.name);
+            }
+            addSeeReferences(clazz.seeReferences, new Reference(Kind.SEE, clazz.name, null, -1));
+        }
+        for (Function function : documentation.functions) {
+            addFunction(function, null);
+        }
+        for (int i = 0; i < documentation.variables.size(); i++) {
+            Variable variable = documentation.variables.get(i);
+            addType(variable.type, new Reference(Kind.VARIABLE, null, variable.name, i));
+        }
+    }
+
+    private void addFunction(Function function, String owner) {
+        Reference parameter = new Reference(Kind.PARAMETER, owner, function.name, -1);
+        for (Function.Parameter param : function.parameters) {
+            addType(param.type, parameter);
+        }
+        addType(function.returnType, new Reference(Kind.RETURN, owner, function.name, -1));
+        addSeeReferences(function.seeReferences, new Reference(Kind.SEE, owner, function.name, -1));
+    }
+
+    private void addSeeReferences(List<SeeReference> seeReferences, Reference reference) {
+        for (SeeReference see : seeReferences) {
+            String name = see.referenceName;
+            if (see.type == SeeReference.ReferenceType.FUNCTION || see.type == SeeReference.ReferenceType.METHOD) {
+                // Class.method references the class
+                name = name.split("[.:]")[0];
+            }
+            add(name, reference);
+        }
+    }
+
+    /**
+     * Adds the reference to every documented class named in a type expression such as
+     * {@code MyClass[]|table<string, Other>?}.
+     */
+    private void addType(String type, Reference reference) {
+        if (type == null || type.isEmpty()) {
+            return;
+        }
+        Set<String> names = new LinkedHashSet<>();
+        for (String part : type.split("\\|")) {
+            String name = part.trim();
+            if (name.endsWith("?")) {
+                name = name.substring(0, name.length() - 1);
+            }
+            while (name.endsWith("[]")) {
+                name = name.substring(0, name.length() - 2);
+            }
+            // Generic class names like BaseTable<T> are documented as they are
+            names.add(name);
+            for (String token : name.split("[<>,()\\[\\]?\\s]+")) {
+                names.add(token);
+            }
+        }
+        for (String name : names) {
+            add(name, reference);
+        }
+    }
+
+    private void add(String className, Reference reference) {
+        if (className.isEmpty() || !layout.classExists(className)) {
+            return;
+        }
+        List<Reference> references = referencesByClass.computeIfAbsent(className, k -> new ArrayList<>());
+        // A member naming the class twice (e.g. two parameters) is listed once
+        if (references.isEmpty() || references.get(references.size() - 1) != reference) {
+            references.add(reference);
+        }
+    }
+
+    /**
+     * Returns the places referencing the given class, in documentation order.
+     * @param className the name of the class
+     * @return the references, empty if the class is not referenced
+     */
+    public List<Reference> referencesTo(String className) {
+        Dependencies.readReferences(className);
+        return referencesByClass.getOrDefault(className, Collections.emptyList());
+    }
+
+    /**
+     * Returns the page a reference is rendered on.
+     * @param reference the reference
+     * @return the file name of the page
+     */
+    public String pageOf(Reference reference) {
+        if (reference.owner != null) {
+            if (reference.kind == Kind.FIELD) {
+                return layout.classPage(reference.owner, reference.position / layout.pageSize);
+            }
+            if (reference.member == null) {
+                return layout.classPage(reference.owner, 0);
+            }
+            return layout.methodPage(reference.owner, reference.member);
+        }
+        if (reference.kind == Kind.VARIABLE) {
+            return layout.globalVariablePage(reference.position);
+        }
+        return layout.globalFunctionPage(reference.member);
+    }
+}
@@ -0,0 +1,278 @@
+package de.fb.ldg;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Prefix search index for the generated pages. Every documented symbol is indexed under its
+ * full name and under each segment of a dotted or colon separated name, so "net" finds
+ * "Config.General.Network". The index is sharded by the first character of the key: the
+ * browser only loads the shard matching the first typed character.
+ *
+ * <p>A shard is a small script calling {@code LdgSearch.shard(key, entries, keys)}, where
+ * {@code entries} is a table of {@code [name, kind, href]} rows and {@code keys} is a sorted list
+ * of {@code [key, [entry indices]]}. Scripts are used instead of JSON so the search also works
+ * for pages opened from the local file system.</p>
+ */
+public class SearchIndex {
+
+    /**
+     * Directory below the output directory the index files are written to.
+     */
+    public static final String DIRECTORY = "search";
+
+    private static final String SEARCH_SCRIPT = """
+        var LdgSearch = (function () {
+            var base = document.currentScript.src.replace(/[^\\/]*$/, "");
+            var shards = {}, pending = {}, known = null;
+
+            function shardKey(text) {
+                var c = text.charAt(0);
+                return /[a-z0-9]/.test(c) ? c : "_";
+            }
+
+            function load(key, callback) {
+                if (shards[key]) { callback(shards[key]); return; }
+                if (known !== null && known.indexOf(key) < 0) { callback(null); return; }
+                if (pending[key]) { pending[key].push(callback); return; }
+                pending[key] = [callback];
+                var script = document.createElement("script");
+                script.src = base + key + ".js";
+                script.onerror = function () { shards[key] = { e: [], k: [] }; flush(key); };
+                document.head.appendChild(script);
+            }
+
+            function flush(key) {
+                var callbacks = pending[key] || [];
+                delete pending[key];
+                for (var i = 0; i < callbacks.length; i++) callbacks[i](shards[key]);
+            }
+
+            function query(text, limit, callback) {
+                text = text.trim().toLowerCase();
+                if (!text) { callback([]); return; }
+                load(shardKey(text), function (shard) {
+                    var results = [], seen = {};
+                    if (!shard) { callback(results); return; }
+                    var keys = shard.k, lo = 0, hi = keys.length;
+                    while (lo < hi) {
+                        var mid = (lo + hi) >> 1;
+                        if (keys[mid][0] < text) lo = mid + 1; else hi = mid;
+                    }
+                    for (var i = lo; i < keys.length && keys[i][0].lastIndexOf(text, 0) === 0; i++) {
+                        var postings = keys[i][1];
+                        for (var j = 0; j < postings.length && results.length < limit; j++) {
+                            if (!seen[postings[j]]) { seen[postings[j]] = true; results.push(shard.e[postings[j]]); }
+                        }
+                    }
+                    callback(results);
+                });
+            }
+
+            function attach() {
+                var input = document.getElementById("ldg-search");
+                var list = document.getElementById("ldg-search-results");
+                if (!input || !list) return;
+                var prefix = input.getAttribute("data-root") || "";
+                input.addEventListener("input", function () {
+                    var text = input.value;
+                    query(text, 50, function (results) {
+                        if (input.value !== text) return;
+                        list.innerHTML = "";
+                        for (var i = 0; i < results.length; i++) {
+                            var item = document.createElement("a");
+                            item.href = prefix + results[i][2];
+                            item.textContent = results[i][0];
+                            var kind = document.createElement("span");
+                            kind.className = "search-kind";
+                            kind.textContent = results[i][1];
+                            item.appendChild(kind);
+                            list.appendChild(item);
+                        }
+                        list.style.display = results.length ? "block" : "none";
+                    });
+                });
+            }
+
+            if (document.readyState === "loading") document.addEventListener("DOMContentLoaded", attach); else attach();
+
+            return {
+                shards: function (keys) { known = keys; },
+                shard: function (key, entries, keys) { shards[key] = { e: entries, k: keys }; flush(key); },
+                query: query
+            };
+        })();
+        """;
+
+    private static class Shard {
+        final List<String[]> entries = new ArrayList<>();
+        final Map<String[], Integer> entryIds = new IdentityHashMap<>();
+        final TreeMap<String, List<Integer>> keys = new TreeMap<>();
+
+        void add(String key, String[] entry) {
+            Integer id = entryIds.get(entry);
+            if (id == null) {
+                id = entries.size();
+                entries.add(entry);
+                entryIds.put(entry, id);
+            }
+            List<Integer> postings = keys.computeIfAbsent(key, k -> new ArrayList<>());
+            if (postings.isEmpty() || postings.get(postings.size() - 1) != id.intValue()) {
+                postings.add(id);
+            }
+        }
+    }
+
+    private final TreeMap<String, Shard> shards = new TreeMap<>();
+
+    private SearchIndex() {
+    }
+
+    /**
+     * Builds the index over all classes, methods, fields, global functions and variables.
+     * @param layout The page layout of the documentation to index
+     * @return the index
+     */
+    public static SearchIndex build(PageLayout layout) {
+        Documentation documentation = layout.documentation;
+        SearchIndex index = new SearchIndex();
+
+        for (Class clazz : documentation.classes) {
+            String page = layout.classPage(clazz.name, 0);
+            index.add(new String[]{clazz.name, "class", page});
+            for (int i = 0; i < clazz.fields.size(); i++) {
+                Field field = clazz.fields.get(i);
+                index.add(new String[]{clazz.name + "." + field.name, "field", layout.classPage(clazz.name, i / layout.pageSize)});
+            }
+            for (Function function : clazz.functions) {
+                String separator = function.isStatic ? "." : ":";
+                index.add(new String[]{clazz.name + separator + function.name, "method",
+                    layout.methodPage(clazz.name, function.name) + "#" + layout.ids.anchor(function)});
+            }
+        }
+        for (Function function : documentation.functions) {
+            index.add(new String[]{function.name, "function",
+                layout.globalFunctionPage(function.name) + "#" + layout.ids.anchor(function)});
+        }
+        for (int i = 0; i < documentation.variables.size(); i++) {
+            index.add(new String[]{documentation.variables.get(i).name, "variable", layout.globalVariablePage(i)});
+        }
+
+        return index;
+    }
+
+    private void add(String[] entry) {
+        String name = entry[0].toLowerCase(Locale.ROOT);
+        addKey(name, entry);
+
+        int start = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.' || c == ':') {
+                if (start > 0) {
+                    addKey(name.substring(start, i), entry);
+                }
+                start = i + 1;
+            }
+        }
+        if (start > 0 && start < name.length()) {
+            addKey(name.substring(start), entry);
+        }
+    }
+
+    private void addKey(String key, String[] entry) {
+        if (key.isEmpty()) {
+            return;
+        }
+        shards.computeIfAbsent(shardKey(key), k -> new Shard()).add(key, entry);
+    }
+
+    private static String shardKey(String key) {
+        char c = key.charAt(0);
+        return (c >= 'a' && c <= 'z') || (c >= '0' && c <= '9') ? String.valueOf(c) : "_";
+    }
+
+    /**
+     * Renders the search script and all shards.
+     * @return file contents keyed by their path relative to the output directory
+     */
+    public Map<String, String> files() {
+        Map<String, String> files = new LinkedHashMap<>();
+
+        StringBuilder script = new StringBuilder(SEARCH_SCRIPT);
+        script.append("LdgSearch.shards([");
+        boolean first = true;
+        for (String key : shards.keySet()) {
+            if (!first) script.append(',');
+            appendString(script, key);
+            first = false;
+        }
+        script.append("]);\n");
+        files.put(DIRECTORY + "/search.js", script.toString());
+
+        for (Map.Entry<String, Shard> shard : shards.entrySet()) {
+            files.put(DIRECTORY + "/" + shard.getKey() + ".js", renderShard(shard.getKey(), shard.getValue()));
+        }
+        return files;
+    }
+
+    private static String renderShard(String key, Shard shard) {
+        StringBuilder js = new StringBuilder();
+        js.append("LdgSearch.shard(");
+        appendString(js, key);
+        js.append(",[");
+        for (int i = 0; i < shard.entries.size(); i++) {
+            if (i > 0) js.append(',');
+            String[] entry = shard.entries.get(i);
+            js.append('[');
+            appendString(js, entry[0]);
+            js.append(',');
+            appendString(js, entry[1]);
+            js.append(',');
+            appendString(js, entry[2]);
+            js.append(']');
+        }
+        js.append("],[");
+        boolean first = true;
+        for (Map.Entry<String, List<Integer>> entry : shard.keys.entrySet()) {
+            if (!first) js.append(',');
+            first = false;
+            js.append('[');
+            appendString(js, entry.getKey());
+            js.append(",[");
+            List<Integer> postings = entry.getValue();
+            for (int i = 0; i < postings.size(); i++) {
+                if (i > 0) js.append(',');
+                js.append(postings.get(i));
+            }
+            js.append("]]");
+        }
+        js.append("]);\n");
+        return js.toString();
+    }
+
+    private static void appendString(StringBuilder js, String value) {
+        js.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> js.append("\\\"");
+                case '\\' -> js.append("\\\\");
+                case '<' -> js.append("\\u003c");
+                default -> {
+                    if (c < 0x20) {
+                        js.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        js.append(c);
+                    }
+                }
+            }
+        }
+        js.append('"');
+    }
+}
@@ -0,0 +1,189 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Gives access to Lua files inside ZIP based bundles (.zip, .jar, .rock) without extracting them.
+ * A file inside an archive is addressed as {@code <archive>!/<entry>}, for example
+ * {@code mods/ui.zip!/lua/ui/button.lua}, and resolves to a path of the zip file system.
+ *
+ * <p>The file systems are shared by all builds of the process. A build holds a {@link Lease} while
+ * it reads from archives; file systems that are replaced because their archive changed, or that
+ * are released by {@link #closeUnused()}, are only closed once no build holds a lease any more.</p>
+ */
+public class SourceArchives {
+
+    /**
+     * Separates the archive from the entry in a source name.
+     */
+    public static final String SEPARATOR = "!/";
+
+    private static class OpenArchive {
+        final FileSystem fileSystem;
+        final long size;
+        final FileTime lastModified;
+
+        OpenArchive(FileSystem fileSystem, long size, FileTime lastModified) {
+            this.fileSystem = fileSystem;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+    }
+
+    /**
+     * Marks a build reading from archives, see {@link #lease()}.
+     */
+    public static final class Lease implements AutoCloseable {
+        private boolean released;
+
+        private Lease() {
+        }
+
+        /**
+         * Ends the lease, closing the retired file systems if it was the last one.
+         */
+        @Override
+        public void close() {
+            synchronized (SourceArchives.class) {
+                if (!released) {
+                    released = true;
+                    leases--;
+                    closeRetired();
+                }
+            }
+        }
+    }
+
+    private static final Map<Path, OpenArchive> archives = new HashMap<>();
+    private static final List<FileSystem> retired = new ArrayList<>();
+    private static int leases = 0;
+
+    private SourceArchives() {
+    }
+
+    /**
+     * Checks whether the given path is an archive that can contain Lua files.
+     * @param path the path to check
+     * @return true for regular files ending with .zip, .jar or .rock
+     */
+    public static boolean isArchive(Path path) {
+        Path fileName = path.getFileName();
+        if (fileName == null) {
+            return false;
+        }
+        String name = fileName.toString().toLowerCase(Locale.ROOT);
+        return (name.endsWith(".zip") || name.endsWith(".jar") || name.endsWith(".rock")) && Files.isRegularFile(path);
+    }
+
+    /**
+     * Lists all .lua entries of an archive.
+     * @param archive the archive
+     * @return source names of the form {@code <archive>!/<entry>}, sorted by entry name
+     * @throws IOException if the archive cannot be read
+     */
+    public static List<String> listLuaFiles(Path archive) throws IOException {
+        Path absolute = archive.toAbsolutePath().normalize();
+        FileSystem fileSystem = open(absolute);
+        try (Stream<Path> paths = Files.walk(fileSystem.getPath("/"))) {
+            return paths.filter(Files::isRegularFile)
+                .map(Path::toString)
+                .filter(entry -> entry.toLowerCase(Locale.ROOT).endsWith(".lua"))
+                .sorted()
+                .map(entry -> absolute + SEPARATOR + (entry.startsWith("/") ? entry.substring(1) : entry))
+                .collect(Collectors.toList());
+        }
+    }
+
+    /**
+     * Resolves a source name to a path. Names pointing into an archive resolve to a path of the
+     * archive's zip file system, all other names to a path of the default file system.
+     * @param source a file name or {@code <archive>!/<entry>}
+     * @return the path to read the source from
+     */
+    public static Path resolve(String source) {
+        int separator = source.indexOf(SEPARATOR);
+        if (separator > 0) {
+            Path archive = Paths.get(source.substring(0, separator));
+            if (isArchive(archive)) {
+                try {
+                    return open(archive.toAbsolutePath().normalize()).getPath("/" + source.substring(separator + SEPARATOR.length()));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        return Paths.get(source);
+    }
+
+    /**
+     * Starts reading from archives. File systems are not closed while the lease is held, paths
+     * resolved during the lease stay readable until it is closed.
+     * @return the lease, to be closed when the build is done
+     */
+    public static synchronized Lease lease() {
+        leases++;
+        return new Lease();
+    }
+
+    /**
+     * Releases the file systems of all archives read so far, e.g. when a long running process
+     * stops. They are closed as soon as no build holds a lease, an archive read again later is
+     * reopened.
+     */
+    public static synchronized void closeUnused() {
+        for (OpenArchive open : archives.values()) {
+            retired.add(open.fileSystem);
+        }
+        archives.clear();
+        closeRetired();
+    }
+
+    private static void closeRetired() {
+        if (leases > 0) {
+            return;
+        }
+        for (FileSystem fileSystem : retired) {
+            try {
+                fileSystem.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+        }
+        retired.clear();
+    }
+
+    /**
+     * Returns the zip file system of the archive. File systems stay open for later calls; when the
+     * archive changed on disk it is opened again and the old file system retired.
+     */
+    private static synchronized FileSystem open(Path archive) throws IOException {
+        BasicFileAttributes attributes = Files.readAttributes(archive, BasicFileAttributes.class);
+        OpenArchive open = archives.get(archive);
+        if (open != null && open.size == attributes.size() && open.lastModified.equals(attributes.lastModifiedTime())) {
+            return open.fileSystem;
+        }
+        if (open != null) {
+            retired.add(open.fileSystem);
+            closeRetired();
+        }
+
+        FileSystem fileSystem = FileSystems.newFileSystem(archive);
+        archives.put(archive, new OpenArchive(fileSystem, attributes.size(), attributes.lastModifiedTime()));
+        return fileSystem;
+    }
+}
@@ -0,0 +1,296 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the Lua files to document. Directories are traversed in parallel, every entry is
+ * stat'ed exactly once and the attributes are handed downstream with the file, so later
+ * stages (parse cache, scheduling) do not have to touch the file system again.
+ *
+ * <p>Files and directories can be filtered with include and exclude globs. Patterns without a
+ * '/' match a file or directory name at any depth, other patterns are matched against the path
+ * relative to the scanned directory, to the root of an archive or, for files given directly, to
+ * the working directory. Each scanned directory may contain an {@value #IGNORE_FILE} file with
+ * one exclude pattern per line ('#' starts a comment); it only applies to that directory.</p>
+ */
+public class SourceDiscovery {
+
+    /**
+     * Name of the ignore file read from the root of every scanned directory.
+     */
+    public static final String IGNORE_FILE = ".ldgignore";
+
+    /**
+     * Directory names that are never scanned.
+     */
+    private static final Set<String> SKIPPED_DIRECTORIES = Set.of(".git", ".svn", ".hg", "node_modules");
+
+    /**
+     * Number of directories scanned at the same time. Scanning mostly waits for the file system,
+     * so this is well above the number of processors.
+     */
+    private static final int PARALLELISM = Math.max(8, 2 * Runtime.getRuntime().availableProcessors());
+
+    /**
+     * A discovered Lua file together with the attributes read during discovery.
+     */
+    public static class SourceFile {
+        /**
+         * The file name as passed to {@link SourceArchives#resolve(String)}.
+         */
+        public final String path;
+
+        /**
+         * Size in bytes, or -1 if unknown.
+         */
+        public final long size;
+
+        /**
+         * Last modification time, or null if unknown.
+         */
+        public final FileTime lastModified;
+
+        public SourceFile(String path, long size, FileTime lastModified) {
+            this.path = path;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        /**
+         * Creates a source file whose attributes have not been read yet.
+         */
+        public static SourceFile of(String path) {
+            return new SourceFile(path, -1, null);
+        }
+
+        /**
+         * @return whether size and modification time are known
+         */
+        public boolean hasAttributes() {
+            return size >= 0 && lastModified != null;
+        }
+    }
+
+    /**
+     * A glob pattern from the command line or an ignore file.
+     */
+    private static class Pattern {
+        final PathMatcher matcher;
+        final boolean nameOnly;
+
+        Pattern(String glob) {
+            String normalized = glob.endsWith("/") ? glob.substring(0, glob.length() - 1) : glob;
+            if (normalized.startsWith("/")) {
+                normalized = normalized.substring(1);
+            }
+            this.nameOnly = !normalized.contains("/");
+            this.matcher = FileSystems.getDefault().getPathMatcher("glob:" + normalized);
+        }
+
+        boolean matches(Path relative) {
+            if (nameOnly) {
+                Path name = relative.getFileName();
+                return name != null && matcher.matches(name);
+            }
+            return matcher.matches(relative);
+        }
+    }
+
+    private final List<Pattern> includes = new ArrayList<>();
+    private final List<Pattern> excludes = new ArrayList<>();
+
+    /**
+     * Only files matching at least one include pattern are returned. Without includes every .lua file is.
+     * @param glob the pattern
+     * @return this discovery
+     */
+    public SourceDiscovery include(String glob) {
+        includes.add(new Pattern(glob));
+        return this;
+    }
+
+    /**
+     * Files and directories matching an exclude pattern are skipped.
+     * @param glob the pattern
+     * @return this discovery
+     */
+    public SourceDiscovery exclude(String glob) {
+        excludes.add(new Pattern(glob));
+        return this;
+    }
+
+    /**
+     * Expands the inputs into Lua files. Directories are scanned recursively, without descending into
+     * symbolic links to directories (linked files are read), archives are expanded
+     * into their .lua entries and plain files are taken as they are. The includes and excludes
+     * apply to all of them.
+     * @param inputs files, directories and archives
+     * @return the Lua files, directory results sorted by path
+     * @throws NoSuchFileException if an input does not exist
+     * @throws IOException if an input cannot be read
+     */
+    public List<SourceFile> discover(List<String> inputs) throws IOException {
+        List<SourceFile> sources = new ArrayList<>();
+        for (String input : inputs) {
+            Path path = SourceArchives.resolve(input);
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+
+            if (attributes.isDirectory()) {
+                sources.addAll(scanDirectory(path));
+            } else if (SourceArchives.isArchive(path)) {
+                for (String entry : SourceArchives.listLuaFiles(path)) {
+                    String name = entry.substring(entry.indexOf(SourceArchives.SEPARATOR) + SourceArchives.SEPARATOR.length());
+                    if (!isSelectedWithParents(Paths.get(name))) {
+                        continue;
+                    }
+                    BasicFileAttributes entryAttributes = Files.readAttributes(SourceArchives.resolve(entry), BasicFileAttributes.class);
+                    sources.add(new SourceFile(entry, entryAttributes.size(), entryAttributes.lastModifiedTime()));
+                }
+            } else {
+                if (!Files.isReadable(path)) {
+                    throw new IOException("Cannot read file: " + input);
+                }
+                if (isSelectedWithParents(path.normalize())) {
+                    sources.add(new SourceFile(input, attributes.size(), attributes.lastModifiedTime()));
+                }
+            }
+        }
+        return sources;
+    }
+
+    private List<SourceFile> scanDirectory(Path directory) throws IOException {
+        Path root = directory.toAbsolutePath().normalize();
+        List<Pattern> rootExcludes = new ArrayList<>(excludes);
+        Path ignoreFile = root.resolve(IGNORE_FILE);
+        if (Files.isRegularFile(ignoreFile)) {
+            for (String line : Files.readAllLines(ignoreFile)) {
+                String trimmed = line.trim();
+                if (!trimmed.isEmpty() && !trimmed.startsWith("#")) {
+                    rootExcludes.add(new Pattern(trimmed));
+                }
+            }
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+        try {
+            List<SourceFile> sources = pool.invoke(new ScanTask(root, root, rootExcludes));
+            sources.sort(Comparator.comparing(source -> source.path));
+            return sources;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Scans one directory and forks a task for every subdirectory.
+     */
+    @SuppressWarnings("serial") // Never serialized, RecursiveTask is only Serializable by inheritance
+    private class ScanTask extends RecursiveTask<List<SourceFile>> {
+        private final Path root;
+        private final Path directory;
+        private final List<Pattern> excludes;
+
+        ScanTask(Path root, Path directory, List<Pattern> excludes) {
+            this.root = root;
+            this.directory = directory;
+            this.excludes = excludes;
+        }
+
+        @Override
+        protected List<SourceFile> compute() {
+            List<SourceFile> sources = new ArrayList<>();
+            List<ScanTask> subtasks = new ArrayList<>();
+
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory)) {
+                for (Path entry : entries) {
+                    BasicFileAttributes attributes;
+                    try {
+                        attributes = Files.readAttributes(entry, BasicFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+                        if (attributes.isSymbolicLink()) {
+                            attributes = Files.readAttributes(entry, BasicFileAttributes.class);
+                            if (attributes.isDirectory()) {
+                                // Linked directories are not scanned, like Files.walk; a link such as loop -> .. would never end
+                                continue;
+                            }
+                        }
+                    } catch (NoSuchFileException e) {
+                        // Deleted or dangling symbolic link
+                        continue;
+                    }
+
+                    String name = entry.getFileName().toString();
+                    Path relative = root.relativize(entry);
+
+                    if (attributes.isDirectory()) {
+                        if (!SKIPPED_DIRECTORIES.contains(name) && !matchesAny(excludes, relative)) {
+                            ScanTask subtask = new ScanTask(root, entry, excludes);
+                            subtask.fork();
+                            subtasks.add(subtask);
+                        }
+                    } else if (attributes.isRegularFile() && isLuaFile(name) && isSelected(relative, excludes)) {
+                        sources.add(new SourceFile(entry.toString(), attributes.size(), attributes.lastModifiedTime()));
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+
+            for (ScanTask subtask : subtasks) {
+                sources.addAll(subtask.join());
+            }
+            return sources;
+        }
+    }
+
+    /**
+     * Checks a file against the includes and the given excludes.
+     */
+    private boolean isSelected(Path relative, List<Pattern> excludes) {
+        return !matchesAny(excludes, relative) && (includes.isEmpty() || matchesAny(includes, relative));
+    }
+
+    /**
+     * Checks a file that was not found by scanning a directory, so its parent directories were not
+     * checked against the excludes yet.
+     */
+    private boolean isSelectedWithParents(Path relative) {
+        for (int i = 1; i < relative.getNameCount(); i++) {
+            if (matchesAny(excludes, relative.subpath(0, i))) {
+                return false;
+            }
+        }
+        return isSelected(relative, excludes);
+    }
+
+    private static boolean matchesAny(List<Pattern> patterns, Path relative) {
+        for (Pattern pattern : patterns) {
+            if (pattern.matches(relative)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isLuaFile(String name) {
+        return name.regionMatches(true, name.length() - 4, ".lua", 0, 4);
+    }
+}
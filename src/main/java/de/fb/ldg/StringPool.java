@@ -0,0 +1,91 @@
+package de.fb.ldg;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shares equal strings between parsed files. Names and types like {@code string}, {@code number}
+ * or the names of common classes occur in many files; a {@link ParseCache} with a pool keeps one
+ * copy of each instead of one per file and build. Descriptions and examples are rarely equal and
+ * are not pooled.
+ */
+public class StringPool {
+
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+
+    /**
+     * @param value a string, may be null
+     * @return the pooled string equal to the given one
+     */
+    public String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String pooled = strings.putIfAbsent(value, value);
+        return pooled != null ? pooled : value;
+    }
+
+    /**
+     * Returns a frozen copy of the documentation whose names and types are pooled.
+     * @param documentation the documentation of a file
+     * @return the copy
+     */
+    public Documentation intern(Documentation documentation) {
+        Documentation result = new Documentation();
+        for (Class clazz : documentation.classes) {
+            List<String> parents = new ArrayList<>(clazz.parent.size());
+            for (String parent : clazz.parent) {
+                parents.add(intern(parent));
+            }
+            List<Field> fields = new ArrayList<>(clazz.fields.size());
+            for (Field field : clazz.fields) {
+                fields.add(new Field(intern(field.name), intern(field.type), intern(field.visibility), field.description));
+            }
+            List<Function> functions = new ArrayList<>(clazz.functions.size());
+            for (Function function : clazz.functions) {
+                functions.add(intern(function));
+            }
+            result.addClass(new Class(intern(clazz.name), parents, fields, functions, intern(clazz.seeReferences)));
+        }
+        for (Function function : documentation.functions) {
+            result.addFunction(intern(function));
+        }
+        for (Variable variable : documentation.variables) {
+            result.addVariable(new Variable(intern(variable.name), intern(variable.type), variable.description, variable.isLocal));
+        }
+        return result.freeze();
+    }
+
+    private Function intern(Function function) {
+        List<Function.Parameter> parameters = new ArrayList<>(function.parameters.size());
+        for (Function.Parameter param : function.parameters) {
+            parameters.add(new Function.Parameter(intern(param.name), intern(param.type), param.description));
+        }
+        return new Function(intern(function.name), function.description, parameters, intern(function.returnType),
+            function.returnDescription, function.nodiscard, function.isStatic, function.examples,
+            intern(function.seeReferences));
+    }
+
+    private List<SeeReference> intern(List<SeeReference> seeReferences) {
+        List<SeeReference> result = new ArrayList<>(seeReferences.size());
+        for (SeeReference see : seeReferences) {
+            result.add(new SeeReference(intern(see.referenceName), see.type, see.description));
+        }
+        return result;
+    }
+
+    /**
+     * @return the number of pooled strings
+     */
+    public int size() {
+        return strings.size();
+    }
+
+    /**
+     * Removes all strings from the pool.
+     */
+    public void clear() {
+        strings.clear();
+    }
+}
@@ -0,0 +1,170 @@
+package de.fb.ldg;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Computes a hash of everything a page can see of a symbol (see {@link Dependencies} for the
+ * symbol names). Two builds rendering a page from symbols with equal fingerprints produce the
+ * same page. Fingerprints are computed on first use and then memoized.
+ */
+public class SymbolFingerprints {
+
+    private final PageLayout layout;
+    private final Map<String, String> fingerprints = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the fingerprints of the given layout.
+     * @param layout the layout of the current build
+     */
+    public SymbolFingerprints(PageLayout layout) {
+        this.layout = layout;
+    }
+
+    /**
+     * Returns the fingerprint of a symbol. Must not be called while a page is being recorded.
+     * @param symbol the symbol
+     * @return the fingerprint
+     */
+    public String get(String symbol) {
+        return fingerprints.computeIfAbsent(symbol, this::compute);
+    }
+
+    private String compute(String symbol) {
+        StringBuilder sb = new StringBuilder();
+        if (symbol.equals(Dependencies.GLOBALS)) {
+            appendGlobals(sb);
+        } else if (symbol.equals(Dependencies.CLASSES)) {
+            for (Class clazz : layout.documentation.classes) {
+                appendClass(sb, clazz);
+            }
+        } else if (symbol.equals(Dependencies.NAMESPACES)) {
+            for (Class clazz : layout.documentation.classes) {
+                append(sb, clazz.name);
+                append(sb, layout.classPage(clazz.name, 0));
+            }
+            append(sb, String.valueOf(layout.documentation.functions.isEmpty() && layout.documentation.variables.isEmpty()));
+        } else {
+            int colon = symbol.indexOf(':');
+            String kind = symbol.substring(0, colon);
+            String name = symbol.substring(colon + 1);
+            switch (kind) {
+                case "class":
+                    appendClass(sb, layout.findClass(name));
+                    break;
+                case "link":
+                    append(sb, layout.classExists(name) ? layout.classPage(name, 0) : null);
+                    break;
+                case "method":
+                    int dot = name.lastIndexOf('.');
+                    String className = name.substring(0, dot);
+                    String methodName = name.substring(dot + 1);
+                    if (layout.classExists(className)) {
+                        append(sb, layout.methodPage(className, methodName));
+                        append(sb, layout.ids.methodAnchor(className, methodName));
+                    }
+                    break;
+                case "function":
+                    if (layout.globalFunctionExists(name)) {
+                        append(sb, layout.globalFunctionPage(name));
+                        append(sb, layout.ids.globalFunctionAnchor(name));
+                    }
+                    break;
+                case "refs":
+                    for (ReferenceIndex.Reference reference : layout.references.referencesTo(name)) {
+                        append(sb, reference.kind.name());
+                        append(sb, reference.owner);
+                        append(sb, reference.member);
+                        append(sb, layout.references.pageOf(reference));
+                        if (reference.owner != null && reference.member != null) {
+                            append(sb, layout.ids.methodAnchor(reference.owner, reference.member));
+                        } else if (reference.member != null) {
+                            append(sb, layout.ids.globalFunctionAnchor(reference.member));
+                        }
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown symbol: " + symbol);
+            }
+        }
+        return hash(sb);
+    }
+
+    private void appendClass(StringBuilder sb, Class clazz) {
+        if (clazz == null) {
+            append(sb, null);
+            return;
+        }
+        append(sb, clazz.name);
+        append(sb, layout.classPage(clazz.name, 0));
+        append(sb, String.valueOf(layout.classPageCount(clazz)));
+        append(sb, String.join(",", clazz.parent));
+        for (Field field : clazz.fields) {
+            append(sb, field.visibility);
+            append(sb, field.name);
+            append(sb, field.type);
+            append(sb, field.description);
+        }
+        for (Function function : clazz.functions) {
+            appendFunction(sb, function);
+        }
+        appendSeeReferences(sb, clazz.seeReferences);
+    }
+
+    private void appendGlobals(StringBuilder sb) {
+        append(sb, String.valueOf(layout.globalsPageCount()));
+        for (Function function : layout.documentation.functions) {
+            appendFunction(sb, function);
+        }
+        for (Variable variable : layout.documentation.variables) {
+            append(sb, variable.name);
+            append(sb, variable.type);
+            append(sb, variable.description);
+            append(sb, String.valueOf(variable.isLocal));
+        }
+    }
+
+    private void appendFunction(StringBuilder sb, Function function) {
+        append(sb, function.name);
+        append(sb, layout.ids.anchor(function));
+        append(sb, function.description);
+        append(sb, function.isStatic + "," + function.nodiscard);
+        for (Function.Parameter param : function.parameters) {
+            append(sb, param.name);
+            append(sb, param.type);
+            append(sb, param.description);
+        }
+        append(sb, function.returnType);
+        append(sb, function.returnDescription);
+        for (String example : function.examples) {
+            append(sb, example);
+        }
+        appendSeeReferences(sb, function.seeReferences);
+    }
+
+    private static void appendSeeReferences(StringBuilder sb, List<SeeReference> seeReferences) {
+        for (SeeReference see : seeReferences) {
+            append(sb, see.referenceName);
+            append(sb, see.type.name());
+            append(sb, see.description);
+        }
+    }
+
+    private static void append(StringBuilder sb, String value) {
+        // Separators keep ("ab", "c") and ("a", "bc") apart
+        sb.append(value == null ? "\u0001" : value).append('\u0000');
+    }
+
+    /**
+     * 64 bit FNV-1a hash of the characters.
+     */
+    private static String hash(CharSequence value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return Long.toHexString(hash);
+    }
+}
@@ -0,0 +1,158 @@
+package de.fb.ldg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * A compiled page template. The source is plain text with three kinds of tags:
+ * <ul>
+ * <li>{@code {{name}}} - inserts the value of a slot as it is, values are already HTML</li>
+ * <li>{@code {{#name}}...{{/name}}} - renders the enclosed text only if the slot is not empty</li>
+ * <li>{@code {{^name}}...{{/name}}} - renders the enclosed text only if the slot is empty</li>
+ * </ul>
+ * Slot names are resolved to indexes when the template is compiled, so rendering is a single
+ * loop over an instruction array appending to the output without any lookups.
+ */
+public final class Template {
+
+    private static final int TEXT = 0;
+    private static final int VALUE = 1;
+    private static final int IF_SET = 2;
+    private static final int IF_EMPTY = 3;
+
+    /**
+     * Instructions of three ints each: opcode, argument (text or slot index) and the jump
+     * target of a section.
+     */
+    private final int[] code;
+    private final String[] texts;
+    private final int slotCount;
+
+    private Template(int[] code, String[] texts, int slotCount) {
+        this.code = code;
+        this.texts = texts;
+        this.slotCount = slotCount;
+    }
+
+    /**
+     * Compiles a template.
+     * @param name the name of the template, used in error messages
+     * @param source the template source
+     * @param slots the names of the slots, values are passed in this order when rendering
+     * @return the compiled template
+     * @throws IllegalArgumentException if the template uses an unknown slot or a section is not closed
+     */
+    public static Template compile(String name, String source, List<String> slots) {
+        List<Integer> code = new ArrayList<>();
+        List<String> texts = new ArrayList<>();
+        Deque<int[]> sections = new ArrayDeque<>();
+
+        int pos = 0;
+        while (pos < source.length()) {
+            int open = source.indexOf("{{", pos);
+            int end = open < 0 ? source.length() : open;
+            if (end > pos) {
+                addInstruction(code, TEXT, texts.size());
+                texts.add(source.substring(pos, end));
+            }
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException(name + ": Unclosed tag at offset " + open);
+            }
+            String tag = source.substring(open + 2, close).trim();
+            pos = close + 2;
+
+            char kind = tag.isEmpty() ? ' ' : tag.charAt(0);
+            if (kind == '#' || kind == '^' || kind == '/') {
+                tag = tag.substring(1).trim();
+            }
+            int slot = slots.indexOf(tag);
+            if (slot < 0) {
+                throw new IllegalArgumentException(name + ": Unknown slot '" + tag + "', expected one of " + slots);
+            }
+
+            if (kind == '#' || kind == '^') {
+                sections.push(new int[] {slot, code.size()});
+                addInstruction(code, kind == '#' ? IF_SET : IF_EMPTY, slot);
+            } else if (kind == '/') {
+                int[] section = sections.poll();
+                if (section == null || section[0] != slot) {
+                    throw new IllegalArgumentException(name + ": Unexpected {{/" + tag + "}}");
+                }
+                // Jump behind the last instruction of the section
+                code.set(section[1] + 2, code.size());
+            } else {
+                addInstruction(code, VALUE, slot);
+            }
+        }
+        if (!sections.isEmpty()) {
+            throw new IllegalArgumentException(name + ": Section '" + slots.get(sections.peek()[0]) + "' is not closed");
+        }
+
+        int[] instructions = new int[code.size()];
+        for (int i = 0; i < instructions.length; i++) {
+            instructions[i] = code.get(i);
+        }
+        return new Template(instructions, texts.toArray(new String[0]), slots.size());
+    }
+
+    private static void addInstruction(List<Integer> code, int opcode, int argument) {
+        code.add(opcode);
+        code.add(argument);
+        code.add(0);
+    }
+
+    /**
+     * Renders the template.
+     * @param out the output
+     * @param values the values of the slots in the order given when compiling, null counts as empty
+     */
+    public void render(StringBuilder out, CharSequence... values) {
+        if (values.length != slotCount) {
+            throw new IllegalArgumentException("Expected " + slotCount + " values, got " + values.length);
+        }
+        int pc = 0;
+        while (pc < code.length) {
+            int argument = code[pc + 1];
+            switch (code[pc]) {
+                case TEXT:
+                    out.append(texts[argument]);
+                    break;
+                case VALUE:
+                    if (values[argument] != null) {
+                        out.append(values[argument]);
+                    }
+                    break;
+                case IF_SET:
+                    if (values[argument] == null || values[argument].length() == 0) {
+                        pc = code[pc + 2];
+                        continue;
+                    }
+                    break;
+                default:
+                    if (values[argument] != null && values[argument].length() > 0) {
+                        pc = code[pc + 2];
+                        continue;
+                    }
+                    break;
+            }
+            pc += 3;
+        }
+    }
+
+    /**
+     * Renders the template into a new string.
+     * @param values the values of the slots in the order given when compiling
+     * @return the rendered text
+     */
+    public String render(CharSequence... values) {
+        StringBuilder out = new StringBuilder();
+        render(out, values);
+        return out.toString();
+    }
+}
@@ -0,0 +1,113 @@
+package de.fb.ldg;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * The templates the HTML pages are rendered with (see {@link Template} for the syntax). The
+ * built-in theme is read from the resources next to this class, a custom theme directory only
+ * needs to contain the files it changes:
+ * <ul>
+ * <li>{@code layout.html} - the frame of every page: {@code title, css, root, content}</li>
+ * <li>{@code class.html} - the content of a class page: {@code name, parents, pageLinks, fields,
+ * methods, inherited, referencedBy, seeAlso}</li>
+ * <li>{@code globals.html} - the content of a page of global elements: {@code pageLinks,
+ * functions, variables}</li>
+ * <li>{@code field.html} - a field of a class: {@code cssClass, name, type, visibility, description}</li>
+ * <li>{@code function.html} - a method or global function: {@code cssClass, anchor, name,
+ * signature, returnType, overrides, static, nodiscard, description, parameters, returns,
+ * examples, seeAlso}</li>
+ * <li>{@code variable.html} - a global variable: {@code cssClass, name, type, scope, description}</li>
+ * </ul>
+ * Templates are read and compiled once, a theme can be shared by all render threads.
+ */
+public class Theme {
+
+    static final List<String> LAYOUT_SLOTS = List.of("title", "css", "root", "content");
+    static final List<String> CLASS_SLOTS = List.of("name", "parents", "pageLinks", "fields", "methods",
+        "inherited", "referencedBy", "seeAlso");
+    static final List<String> GLOBALS_SLOTS = List.of("pageLinks", "functions", "variables");
+    static final List<String> FIELD_SLOTS = List.of("cssClass", "name", "type", "visibility", "description");
+    static final List<String> FUNCTION_SLOTS = List.of("cssClass", "anchor", "name", "signature", "returnType",
+        "overrides", "static", "nodiscard", "description", "parameters", "returns", "examples", "seeAlso");
+    static final List<String> VARIABLE_SLOTS = List.of("cssClass", "name", "type", "scope", "description");
+
+    private static final String BUILT_IN = "themes/default/";
+
+    private static volatile Theme builtIn;
+
+    public final Template layout;
+    public final Template classPage;
+    public final Template globalsPage;
+    public final Template field;
+    public final Template function;
+    public final Template variable;
+
+    /**
+     * Hash of all template sources, pages rendered with another theme are not reused.
+     */
+    public final String key;
+
+    private Theme(Path directory) throws IOException {
+        StringBuilder sources = new StringBuilder();
+        this.layout = compile(directory, "layout.html", LAYOUT_SLOTS, sources);
+        this.classPage = compile(directory, "class.html", CLASS_SLOTS, sources);
+        this.globalsPage = compile(directory, "globals.html", GLOBALS_SLOTS, sources);
+        this.field = compile(directory, "field.html", FIELD_SLOTS, sources);
+        this.function = compile(directory, "function.html", FUNCTION_SLOTS, sources);
+        this.variable = compile(directory, "variable.html", VARIABLE_SLOTS, sources);
+        this.key = Integer.toHexString(sources.toString().hashCode());
+    }
+
+    /**
+     * @return the built-in theme
+     */
+    public static Theme builtIn() {
+        Theme theme = builtIn;
+        if (theme == null) {
+            try {
+                theme = new Theme(null);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Error reading the built-in theme", e);
+            }
+            builtIn = theme;
+        }
+        return theme;
+    }
+
+    /**
+     * Loads a theme from a directory. Templates missing in the directory are taken from the built-in theme.
+     * @param directory the theme directory
+     * @return the theme
+     * @throws IOException if a template cannot be read
+     * @throws IllegalArgumentException if a template is invalid
+     */
+    public static Theme load(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IOException("Theme directory does not exist: " + directory);
+        }
+        return new Theme(directory);
+    }
+
+    private static Template compile(Path directory, String fileName, List<String> slots, StringBuilder sources)
+            throws IOException {
+        String source;
+        if (directory != null && Files.isRegularFile(directory.resolve(fileName))) {
+            source = Files.readString(directory.resolve(fileName), StandardCharsets.UTF_8);
+        } else {
+            try (InputStream in = Theme.class.getResourceAsStream(BUILT_IN + fileName)) {
+                if (in == null) {
+                    throw new IOException("Built-in template not found: " + BUILT_IN + fileName);
+                }
+                source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        }
+        sources.append(source).append('\u0000');
+        return Template.compile(fileName, source, slots);
+    }
+}
@@ -0,0 +1,139 @@
+package de.fb.ldg;
+
+import jdk.jfr.Category;
+import jdk.jfr.Configuration;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.util.List;
+
+/**
+ * JDK Flight Recorder events of a documentation build. The events cost next to nothing while no
+ * recording is running; start one with {@code --jfr <file>} or with
+ * {@code -XX:StartFlightRecording} and open it with JDK Mission Control or {@code jfr print
+ * --events de.fb.ldg.FileParse <file>} to find the files and pages that make a build slow.
+ */
+public final class Tracing {
+
+    private static final String CATEGORY = "LuaDocGen";
+
+    private Tracing() {
+    }
+
+    @Name("de.fb.ldg.FileParse")
+    @Label("Parse File")
+    @Category(CATEGORY)
+    @Description("A Lua file was parsed")
+    static class FileParseEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Size")
+        @DataAmount
+        long bytes;
+
+        @Label("Lines")
+        int lines;
+
+        @Label("Doc Blocks")
+        int blocks;
+    }
+
+    @Name("de.fb.ldg.Merge")
+    @Label("Merge File")
+    @Category(CATEGORY)
+    @Description("The documentation of a file was merged into the documentation of the build")
+    static class MergeEvent extends Event {
+        @Label("Path")
+        String path;
+
+        @Label("Classes")
+        int classes;
+
+        @Label("Functions")
+        int functions;
+
+        @Label("Variables")
+        int variables;
+    }
+
+    @Name("de.fb.ldg.PageRender")
+    @Label("Render Page")
+    @Category(CATEGORY)
+    @Description("An HTML page was rendered and written")
+    static class PageRenderEvent extends Event {
+        @Label("Page")
+        String page;
+
+        @Label("Class")
+        @Description("The documented class, empty for other pages")
+        String className;
+
+        @Label("Characters")
+        long characters;
+    }
+
+    @Name("de.fb.ldg.Cache")
+    @Label("Cache Lookup")
+    @Category(CATEGORY)
+    @Description("A parsed file, a rendered page or an up to date page was looked up")
+    static class CacheEvent extends Event {
+        @Label("Cache")
+        @Description("parse, page or manifest")
+        String cache;
+
+        @Label("Key")
+        String key;
+
+        @Label("Hit")
+        boolean hit;
+    }
+
+    /**
+     * Reports a cache lookup if a recording is running.
+     * @param cache the kind of cache: parse, page or manifest
+     * @param key the file or page looked up
+     * @param hit whether the entry could be used
+     */
+    static void cacheLookup(String cache, String key, boolean hit) {
+        CacheEvent event = new CacheEvent();
+        if (event.isEnabled()) {
+            event.cache = cache;
+            event.key = key;
+            event.hit = hit;
+            event.commit();
+        }
+    }
+
+    /**
+     * Starts a recording with the JDK's default settings and the events of this class. The recording
+     * is written to the file when it is stopped, at the latest when the JVM exits.
+     * @param file where the recording is written to
+     * @return the running recording
+     * @throws IOException if the file cannot be used
+     */
+    public static Recording startRecording(Path file) throws IOException {
+        Recording recording;
+        try {
+            recording = new Recording(Configuration.getConfiguration("default"));
+        } catch (ParseException e) {
+            throw new IOException("Cannot read the default JFR settings", e);
+        }
+        recording.setName("luadocgen");
+        for (java.lang.Class<? extends Event> event : List.of(FileParseEvent.class, MergeEvent.class,
+                PageRenderEvent.class, CacheEvent.class)) {
+            recording.enable(event).withoutThreshold();
+        }
+        recording.setDestination(file);
+        recording.setDumpOnExit(true);
+        recording.start();
+        return recording;
+    }
+}
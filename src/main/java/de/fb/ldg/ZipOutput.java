@@ -0,0 +1,147 @@
+package de.fb.ldg;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Writes the generated pages into a ZIP archive, without an intermediate output directory. Pages
+ * are rendered in parallel and spilled to a temporary directory next to the archive, only their
+ * names are kept in memory. {@link #finish()} adds them sorted by path with a fixed timestamp, so
+ * the same pages always give the same archive. The archive is written to a temporary file first,
+ * a failed build leaves an existing archive as it was.
+ */
+public class ZipOutput implements PageOutput {
+
+    /**
+     * Time of every entry. Reproducible builds use 1980-02-01, which is a valid DOS time in every time zone.
+     */
+    private static final LocalDateTime ENTRY_TIME = LocalDateTime.of(1980, 2, 1, 0, 0);
+
+    private final Path archive;
+    private final int level;
+    private final Path spill;
+    private final Map<String, Path> files = new TreeMap<>();
+    private final AtomicInteger spilled = new AtomicInteger();
+    private int entries = 0;
+
+    /**
+     * Creates the output, the archive itself is only replaced by {@link #finish()}.
+     * @param archive the archive to write
+     * @param level the deflate level from 0 to 9, or -1 for the default
+     * @throws IOException if the directory of the archive or the temporary directory cannot be created
+     */
+    public ZipOutput(Path archive, int level) throws IOException {
+        this.archive = archive.toAbsolutePath();
+        this.level = level;
+        Files.createDirectories(this.archive.getParent());
+        this.spill = Files.createTempDirectory(this.archive.getParent(), this.archive.getFileName() + ".");
+    }
+
+    @Override
+    public void write(String relativePath, String content) throws IOException {
+        // Numbered names, the page paths may contain directories or clash on case-insensitive file systems
+        Path file = spill.resolve(spilled.incrementAndGet() + ".page");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        Path replaced;
+        synchronized (files) {
+            replaced = files.put(relativePath, file);
+        }
+        if (replaced != null) {
+            Files.deleteIfExists(replaced);
+        }
+    }
+
+    /**
+     * Adds the spilled pages and replaces the archive.
+     */
+    @Override
+    public void finish() throws IOException {
+        synchronized (files) {
+            Path temp = Files.createTempFile(archive.getParent(), archive.getFileName() + ".", ".tmp");
+            try {
+                try (ZipOutputStream zip = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(temp), 1 << 16))) {
+                    zip.setLevel(level);
+                    Set<String> directories = new HashSet<>();
+                    for (Map.Entry<String, Path> file : files.entrySet()) {
+                        // Directory entries, so tools extracting the archive create them before their files
+                        String relativePath = file.getKey();
+                        int slash = relativePath.lastIndexOf('/');
+                        if (slash > 0) {
+                            String directory = relativePath.substring(0, slash + 1);
+                            if (directories.add(directory)) {
+                                zip.putNextEntry(entry(directory));
+                                zip.closeEntry();
+                            }
+                        }
+
+                        zip.putNextEntry(entry(relativePath));
+                        Files.copy(file.getValue(), zip);
+                        zip.closeEntry();
+                    }
+                }
+                try {
+                    Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException e) {
+                    Files.move(temp, archive, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+            entries = files.size();
+            deleteSpilled();
+        }
+    }
+
+    private static ZipEntry entry(String name) {
+        ZipEntry entry = new ZipEntry(name);
+        entry.setTimeLocal(ENTRY_TIME);
+        return entry;
+    }
+
+    /**
+     * Deletes the spilled pages and the temporary directory.
+     */
+    private void deleteSpilled() throws IOException {
+        files.clear();
+        if (!Files.isDirectory(spill)) {
+            return;
+        }
+        try (DirectoryStream<Path> pages = Files.newDirectoryStream(spill)) {
+            for (Path page : pages) {
+                Files.deleteIfExists(page);
+            }
+        }
+        Files.deleteIfExists(spill);
+    }
+
+    @Override
+    public String describe() {
+        synchronized (files) {
+            return archive + " (" + entries + " file(s))";
+        }
+    }
+
+    /**
+     * Drops the pages of an unfinished archive.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (files) {
+            deleteSpilled();
+        }
+    }
+}
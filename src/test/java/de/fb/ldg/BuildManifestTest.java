@@ -0,0 +1,74 @@
+package de.fb.ldg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BuildManifestTest {
+
+    private static final PrintStream QUIET = new PrintStream(OutputStream.nullOutputStream());
+
+    @TempDir
+    Path dir;
+
+    private static Documentation documentation(String... classNames) {
+        Documentation documentation = new Documentation();
+        for (String className : classNames) {
+            documentation.addClass(new Class(className, new ArrayList<>(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+        }
+        return documentation;
+    }
+
+    private static List<Path> searchFiles(Path output) throws IOException {
+        try (Stream<Path> files = Files.list(output.resolve(SearchIndex.DIRECTORY))) {
+            return files.sorted().toList();
+        }
+    }
+
+    @Test
+    void unchangedBuildDoesNotWriteSearchFiles() throws IOException {
+        Path output = dir.resolve("docs");
+        HtmlGenerator.generateHtml(documentation("Alpha", "Beta"), output.toString(), new HtmlOptions(), QUIET);
+        FileTime old = FileTime.fromMillis(0);
+        for (Path file : searchFiles(output)) {
+            Files.setLastModifiedTime(file, old);
+        }
+
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        HtmlGenerator.generateHtml(documentation("Alpha", "Beta"), output.toString(), new HtmlOptions(), new PrintStream(log, true));
+        for (Path file : searchFiles(output)) {
+            assertEquals(old, Files.getLastModifiedTime(file), file.toString());
+        }
+        // Neither rendered nor compared with the files on disk
+        assertTrue(log.toString().contains("(0 file(s) written, 0 unchanged)"), log.toString());
+    }
+
+    @Test
+    void stalePagesAreDeletedWhenTheOptionsChanged() throws IOException {
+        Path output = dir.resolve("docs");
+        HtmlGenerator.generateHtml(documentation("Alpha", "Beta"), output.toString(), new HtmlOptions(), QUIET);
+        assertTrue(Files.exists(output.resolve("Beta.html")));
+        assertTrue(Files.exists(output.resolve("search/b.js")));
+
+        HtmlOptions options = new HtmlOptions();
+        options.pageSize = 7;
+        HtmlGenerator.generateHtml(documentation("Alpha"), output.toString(), options, QUIET);
+        assertTrue(Files.exists(output.resolve("Alpha.html")));
+        assertFalse(Files.exists(output.resolve("Beta.html")));
+        assertFalse(Files.exists(output.resolve("search/b.js")));
+    }
+}
@@ -0,0 +1,35 @@
+package de.fb.ldg;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HtmlGeneratorTest {
+
+    @Test
+    void namesWithMarkupAreEscaped() {
+        String markup = "<img src=x onerror=alert(1)>&";
+        List<Field> fields = new ArrayList<>(List.of(new Field("f" + markup, "number", "public", "")));
+        List<Function> functions = new ArrayList<>(List.of(
+            new Function("m" + markup, "", new ArrayList<>(), null, null, false, false, new ArrayList<>(), new ArrayList<>())));
+        Class base = new Class("Base" + markup, new ArrayList<>(), fields, functions, new ArrayList<>());
+        Class child = new Class("Child", List.of(base.name, "Missing" + markup), new ArrayList<>(), new ArrayList<>(), new ArrayList<>(List.of(
+            new SeeReference(base.name, SeeReference.ReferenceType.CLASS, ""),
+            new SeeReference("Unknown" + markup, SeeReference.ReferenceType.CLASS, ""),
+            new SeeReference(base.name + ".m", SeeReference.ReferenceType.METHOD, ""))));
+        Documentation documentation = new Documentation();
+        documentation.addClass(base);
+        documentation.addClass(child);
+        PageLayout layout = new PageLayout(documentation, 50);
+
+        for (Class clazz : documentation.classes) {
+            String html = HtmlGenerator.renderClassPage(clazz, layout, 0, Theme.builtIn());
+            assertFalse(html.contains("<img"), html);
+            assertTrue(html.contains("&lt;img src=x onerror=alert(1)&gt;&amp;"), html);
+        }
+    }
+}
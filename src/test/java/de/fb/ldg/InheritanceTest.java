@@ -0,0 +1,58 @@
+package de.fb.ldg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class InheritanceTest {
+
+    private static Class type(String name, String... parents) {
+        return new Class(name, List.of(parents), new ArrayList<>(), new ArrayList<>(), new ArrayList<>());
+    }
+
+    @Test
+    void cycleIsBrokenAtTheSameEdgeForEveryClass() {
+        Documentation documentation = new Documentation();
+        documentation.addClass(type("Child", "B"));
+        documentation.addClass(type("B", "A"));
+        documentation.addClass(type("A", "B"));
+
+        Inheritance inheritance = new Inheritance(documentation);
+
+        assertEquals(List.of("A -> B -> A"), inheritance.getCycles());
+        assertEquals(List.of("B"), inheritance.ancestors("A"));
+        assertEquals(List.of(), inheritance.ancestors("B"));
+        assertEquals(List.of("B"), inheritance.ancestors("Child"));
+    }
+
+    /**
+     * Diamonds stacked above a cycle: every class reaches the cycle through two parents, which is
+     * exponential unless the linearizations above the cycle are memoized.
+     */
+    @Test
+    @Timeout(10)
+    void diamondsAboveCycleAreLinearizedOnce() {
+        int levels = 60;
+        Documentation documentation = new Documentation();
+        documentation.addClass(type("X", "Y"));
+        documentation.addClass(type("Y", "X"));
+        documentation.addClass(type("L0", "X"));
+        for (int i = 1; i <= levels; i++) {
+            documentation.addClass(type("A" + i, "L" + (i - 1)));
+            documentation.addClass(type("B" + i, "L" + (i - 1)));
+            documentation.addClass(type("L" + i, "A" + i, "B" + i));
+        }
+
+        Inheritance inheritance = new Inheritance(documentation);
+
+        assertEquals(List.of("X -> Y -> X"), inheritance.getCycles());
+        List<String> ancestors = inheritance.ancestors("L" + levels);
+        assertEquals(3 * levels + 2, ancestors.size());
+        assertEquals(List.of("A" + levels, "L" + (levels - 1)), ancestors.subList(0, 2));
+        assertEquals("B" + levels, ancestors.get(ancestors.size() - 1));
+    }
+}
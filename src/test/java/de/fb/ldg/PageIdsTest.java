@@ -0,0 +1,35 @@
+package de.fb.ldg;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class PageIdsTest {
+
+    private static void addClasses(Documentation documentation, String namespace) {
+        for (int i = 0; i < 3; i++) {
+            documentation.addClass(new Class(namespace + ".C" + i, List.of(), new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+        }
+    }
+
+    @Test
+    void namespacePagesWithTheSameFileNameDoNotOverwriteEachOther() {
+        Documentation documentation = new Documentation();
+        addClasses(documentation, "A.B");
+        addClasses(documentation, "A_B");
+        addClasses(documentation, "a_b");
+
+        PageLayout layout = new PageLayout(documentation, 50, 2);
+
+        assertEquals("namespace-A_B.html", layout.namespacePage("A.B"));
+        assertEquals("namespace-A_B_2.html", layout.namespacePage("A_B"));
+        assertEquals("namespace-a_b_3.html", layout.namespacePage("a_b"));
+        for (NamespaceTree.Node namespace : layout.namespaces.getPagedNamespaces()) {
+            assertSame(namespace, layout.findNamespacePage(layout.namespacePage(namespace.name)));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package de.fb.ldg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class ParseCacheTest {
+
+    @TempDir
+    Path dir;
+
+    private Path write(String name, String className) throws IOException {
+        return Files.writeString(dir.resolve(name), "---@class " + className + "\n" + className + " = {}\n");
+    }
+
+    @Test
+    void filesNotUsedByRecentBuildsAreDropped() throws IOException {
+        Path kept = write("kept.lua", "Kept");
+        Path gone = write("gone.lua", "Gone");
+        ParseCache cache = new ParseCache(new StringPool()).maxIdleBuilds(2);
+
+        cache.get(kept);
+        cache.get(gone);
+        assertEquals(0, cache.finishBuild());
+
+        Documentation first = cache.get(kept);
+        assertEquals(0, cache.finishBuild());
+        assertSame(first, cache.get(kept));
+        assertEquals(1, cache.finishBuild());
+        assertEquals(1, cache.size());
+
+        // The remaining entry is still answered from the cache
+        long misses = cache.getMisses();
+        assertEquals("Kept", cache.get(kept).classes.get(0).name);
+        assertEquals(misses, cache.getMisses());
+    }
+}
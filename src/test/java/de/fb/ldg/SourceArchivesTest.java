@@ -0,0 +1,104 @@
+package de.fb.ldg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class SourceArchivesTest {
+
+    private static final String SOURCE = """
+        ---@class Button
+        ---@field label string
+        Button = {}
+        """;
+
+    @TempDir
+    Path dir;
+
+    private Path createArchive() throws IOException {
+        Path archive = dir.resolve("ui.zip");
+        try (OutputStream out = Files.newOutputStream(archive); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("lua/button.lua"));
+            zip.write(SOURCE.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return archive;
+    }
+
+    private DocOptions options(String output) {
+        DocOptions options = new DocOptions();
+        options.output = dir.resolve(output).toString();
+        options.log = new PrintStream(OutputStream.nullOutputStream());
+        return options;
+    }
+
+    @Test
+    void closingOneEngineKeepsArchivesOfRunningBuildsOpen() throws IOException {
+        Path archive = createArchive();
+        List<String> inputs = List.of(archive.toString());
+
+        DocEngine first = new DocEngine();
+        List<SourceDiscovery.SourceFile> sources = first.discover(inputs, options("first"));
+        Path entry;
+        try (SourceArchives.Lease lease = SourceArchives.lease()) {
+            entry = SourceArchives.resolve(sources.get(0).path);
+
+            try (DocEngine second = new DocEngine()) {
+                Documentation documentation = second.build(inputs, options("second"));
+                assertEquals("Button", documentation.classes.get(0).name);
+            }
+
+            assertEquals(SOURCE, Files.readString(entry));
+            assertEquals("Button", first.parse(sources, options("first")).classes.get(0).name);
+        }
+
+        // The released file system is closed once the last build is done
+        assertThrows(ClosedFileSystemException.class, () -> Files.readString(entry));
+        assertEquals("Button", first.build(inputs, options("first")).classes.get(0).name);
+        first.close();
+    }
+
+    @Test
+    void concurrentBuildsSurviveClose() throws Exception {
+        Path archive = createArchive();
+        List<String> inputs = List.of(archive.toString());
+        Thread[] builders = new Thread[4];
+        Throwable[] failures = new Throwable[builders.length];
+        for (int i = 0; i < builders.length; i++) {
+            int index = i;
+            DocOptions options = options("docs" + i);
+            options.useCache = false;
+            builders[i] = new Thread(() -> {
+                try (DocEngine engine = new DocEngine()) {
+                    for (int round = 0; round < 50; round++) {
+                        assertEquals(1, engine.build(inputs, options).classes.size());
+                    }
+                } catch (Throwable e) {
+                    failures[index] = e;
+                }
+            });
+            builders[i].start();
+        }
+        for (Thread builder : builders) {
+            builder.join();
+        }
+        for (Throwable failure : failures) {
+            if (failure != null) {
+                throw new AssertionError(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package de.fb.ldg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SourceDiscoveryTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    @Timeout(10)
+    void symbolicLinkCycleIsNotFollowed() throws IOException {
+        Path src = Files.createDirectories(dir.resolve("src/ui"));
+        Files.writeString(src.resolve("button.lua"), "Button = {}\n");
+        Files.writeString(dir.resolve("src/main.lua"), "Main = {}\n");
+        Files.createSymbolicLink(src.resolve("loop"), Path.of(".."));
+        Files.createSymbolicLink(dir.resolve("src/self"), dir.resolve("src"));
+        Files.createSymbolicLink(dir.resolve("src/linked.lua"), dir.resolve("src/main.lua"));
+
+        List<String> names = new SourceDiscovery().discover(List.of(dir.resolve("src").toString())).stream()
+            .map(source -> dir.resolve("src").relativize(Path.of(source.path)).toString().replace('\\', '/'))
+            .toList();
+
+        assertEquals(List.of("linked.lua", "main.lua", "ui/button.lua"), names);
+    }
+}
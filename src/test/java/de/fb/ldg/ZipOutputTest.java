@@ -0,0 +1,48 @@
+package de.fb.ldg;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipFile;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ZipOutputTest {
+
+    @TempDir
+    Path dir;
+
+    private byte[] writeArchive(Path archive, List<String> order) throws IOException {
+        try (ZipOutput output = new ZipOutput(archive, -1)) {
+            for (String name : order) {
+                output.write(name, "<p>" + name + "</p>");
+            }
+            output.write("index.html", "<p>replaced</p>");
+            output.finish();
+        }
+        return Files.readAllBytes(archive);
+    }
+
+    @Test
+    void sameArchiveForAnyWriteOrderWithoutLeftovers() throws IOException {
+        Path archive = dir.resolve("site.zip");
+        byte[] first = writeArchive(archive, List.of("index.html", "b/page.html", "a.html"));
+        byte[] second = writeArchive(archive, List.of("a.html", "index.html", "b/page.html"));
+        assertArrayEquals(first, second);
+
+        try (ZipFile zip = new ZipFile(archive.toFile())) {
+            assertEquals(List.of("a.html", "b/", "b/page.html", "index.html"),
+                zip.stream().map(entry -> entry.getName()).toList());
+            assertEquals("<p>replaced</p>", new String(zip.getInputStream(zip.getEntry("index.html")).readAllBytes()));
+        }
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(List.of(archive), files.toList());
+        }
+    }
+}